@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Синтетические наборы данных для бенчмарков: отдельная база H2 в памяти со схемой приложения,
+ * фильмы и пользователи с id от 1, лайки с перекосом в сторону первых фильмов и дружба между
+ * пользователями с близкими id, чтобы у соседей были общие друзья. Генерация детерминирована.
+ */
+final class Datasets {
+
+    static final int LIKES_PER_FILM = 5;
+    static final int FRIENDS_PER_USER = 20;
+    private static final int FRIEND_WINDOW = 200;
+    private static final int CHUNK_SIZE = 1000;
+    private static final long SEED = 42;
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private Datasets() {
+    }
+
+    static HikariDataSource database() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:bench" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(16);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(dataSource);
+        return dataSource;
+    }
+
+    static Film film(int i) {
+        Film film = new Film();
+        film.setName("Фильм " + i);
+        film.setDescription("Описание фильма номер " + i);
+        film.setReleaseDate(LocalDate.of(1950 + i % 70, 1 + i % 12, 1 + i % 28));
+        film.setDuration(90 + i % 60);
+        Film.Mpa mpa = new Film.Mpa();
+        mpa.setId(1 + i % 5);
+        film.setMpa(mpa);
+        film.getGenres().add(genre(1 + i % 6));
+        if ((i / 6) % 6 != i % 6) {
+            film.getGenres().add(genre(1 + (i / 6) % 6));
+        }
+        return film;
+    }
+
+    static User user(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@bench.ru");
+        user.setLogin("user" + i);
+        user.setName("Пользователь " + i);
+        user.setBirthday(LocalDate.of(1960 + i % 40, 1 + i % 12, 1 + i % 28));
+        return user;
+    }
+
+    static void fillFilms(FilmStorage storage, int count) {
+        List<Film> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 1; i <= count; i++) {
+            chunk.add(film(i));
+            if (chunk.size() == CHUNK_SIZE || i == count) {
+                storage.createAll(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+    }
+
+    static void fillUsers(UserStorage storage, int count) {
+        List<User> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 1; i <= count; i++) {
+            chunk.add(user(i));
+            if (chunk.size() == CHUNK_SIZE || i == count) {
+                storage.createAll(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Передаёт пакетами пары (фильмы, пользователи) для {@code films * LIKES_PER_FILM} лайков.
+     * Пары могут повторяться — хранилища должны это переносить.
+     */
+    static void likes(int films, int users, BiConsumer<int[], int[]> sink) {
+        likes(films, users, (long) films * LIKES_PER_FILM, sink);
+    }
+
+    /**
+     * То же для заданного общего числа лайков — когда пользователей намного больше, чем фильмов.
+     */
+    static void likes(int films, int users, long total, BiConsumer<int[], int[]> sink) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] filmIds = new int[CHUNK_SIZE];
+        int[] userIds = new int[CHUNK_SIZE];
+        int size = 0;
+        for (long i = 0; i < total; i++) {
+            filmIds[size] = skewedId(random, films);
+            userIds[size] = 1 + random.nextInt(users);
+            if (++size == CHUNK_SIZE || i == total - 1) {
+                sink.accept(Arrays.copyOf(filmIds, size), Arrays.copyOf(userIds, size));
+                size = 0;
+            }
+        }
+    }
+
+    /**
+     * Передаёт пакетами направленные связи дружбы: по {@value #FRIENDS_PER_USER} на пользователя
+     * среди соседей по id в окне {@value #FRIEND_WINDOW}.
+     */
+    static void friends(int users, BiConsumer<int[], int[]> sink) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] userIds = new int[CHUNK_SIZE];
+        int[] friendIds = new int[CHUNK_SIZE];
+        int size = 0;
+        for (int userId = 1; userId <= users; userId++) {
+            for (int k = 0; k < FRIENDS_PER_USER; k++) {
+                int friendId = Math.floorMod(userId - 1 + random.nextInt(-FRIEND_WINDOW / 2, FRIEND_WINDOW / 2), users) + 1;
+                if (friendId == userId) {
+                    continue;
+                }
+                userIds[size] = userId;
+                friendIds[size] = friendId;
+                if (++size == CHUNK_SIZE) {
+                    sink.accept(userIds.clone(), friendIds.clone());
+                    size = 0;
+                }
+            }
+        }
+        if (size > 0) {
+            sink.accept(Arrays.copyOf(userIds, size), Arrays.copyOf(friendIds, size));
+        }
+    }
+
+    /**
+     * Id от 1 до {@code bound} с перекосом к малым значениям, как у популярности реальных фильмов.
+     */
+    static int skewedId(SplittableRandom random, int bound) {
+        double r = random.nextDouble();
+        return 1 + (int) (bound * r * r * r);
+    }
+
+    private static Film.Genre genre(int id) {
+        Film.Genre genre = new Film.Genre();
+        genre.setId(id);
+        return genre;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.LikeDbStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmStorageBenchmark {
+
+    private static final int CONTENDED_THREADS = 8;
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"db", "memory"})
+    private String storage;
+
+    private FilmStorage films;
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (storage.equals("db")) {
+            dataSource = Datasets.database();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            films = new FilmDbStorage(jdbcTemplate);
+            Datasets.fillFilms(films, rows);
+            LikeDbStorage likes = new LikeDbStorage(jdbcTemplate);
+            Datasets.likes(rows, rows, likes::addLikes);
+        } else {
+            InMemoryFilmStorage memory = new InMemoryFilmStorage();
+            Datasets.fillFilms(memory, rows);
+            Datasets.likes(rows, rows, (filmIds, userIds) -> {
+                for (int i = 0; i < filmIds.length; i++) {
+                    memory.getById(filmIds[i]).orElseThrow().getLikes().add(userIds[i]);
+                }
+            });
+            films = memory;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    public List<Film> getAll() {
+        return films.getAll();
+    }
+
+    @Benchmark
+    public Optional<Film> getById() {
+        return films.getById(randomId());
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return films.getPopular(10);
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public Optional<Film> getByIdContended() {
+        return films.getById(randomId());
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public List<Film> getPopularContended() {
+        return films.getPopular(10);
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Общие друзья: соединение двух строк таблицы friends в SQL против пересечения массивов
+ * в {@link FriendGraph} с одной выборкой пользователей по id, как в сервисе.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendStorageBenchmark {
+
+    private static final int CONTENDED_THREADS = 8;
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"sql", "graph"})
+    private String source;
+
+    private FriendDbStorage friends;
+    private UserDbStorage users;
+    private FriendGraph graph;
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = Datasets.database();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        friends = new FriendDbStorage(jdbcTemplate);
+        users = new UserDbStorage(jdbcTemplate, friends);
+        Datasets.fillUsers(users, rows);
+        Datasets.friends(rows, friends::addFriends);
+        graph = new FriendGraph();
+        graph.rebuild(friends::exportAll);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return commonFriends(randomId());
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public List<User> getCommonFriendsContended() {
+        return commonFriends(randomId());
+    }
+
+    private List<User> commonFriends(int userId) {
+        int otherId = userId % rows + 1;
+        if (source.equals("sql")) {
+            return friends.getCommonFriends(userId, otherId);
+        }
+        int[] ids = graph.getCommonFriends(userId, otherId);
+        List<Integer> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            list.add(id);
+        }
+        return users.getByIds(list);
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Занятая куча после нескольких сборок мусора — для замеров памяти, которую удерживает построенная структура.
+ */
+final class Heap {
+
+    private static final int GC_ROUNDS = 5;
+
+    private Heap() {
+    }
+
+    static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись лайков в базу. Id выбираются с тем же перекосом, что и в наборе данных, поэтому под нагрузкой
+ * потоки сталкиваются на строках счётчиков популярных фильмов. Повторный лайк тоже входит в замер.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikeStorageBenchmark {
+
+    private static final int CONTENDED_THREADS = 8;
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private LikeDbStorage likes;
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = Datasets.database();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Datasets.fillFilms(new FilmDbStorage(jdbcTemplate), rows);
+        Datasets.fillUsers(new UserDbStorage(jdbcTemplate, new FriendDbStorage(jdbcTemplate)), rows);
+        likes = new LikeDbStorage(jdbcTemplate);
+        Datasets.likes(rows, rows, likes::addLikes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public boolean addLike(Ids ids) {
+        return likes.addLike(ids.film(), ids.user());
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public boolean addLikeContended(Ids ids) {
+        return likes.addLike(ids.film(), ids.user());
+    }
+
+    @State(Scope.Thread)
+    public static class Ids {
+        private final SplittableRandom random = new SplittableRandom();
+        private int rows;
+
+        @Setup(Level.Trial)
+        public void setUp(LikeStorageBenchmark benchmark) {
+            rows = benchmark.rows;
+        }
+
+        int film() {
+            return Datasets.skewedId(random, rows);
+        }
+
+        int user() {
+            return 1 + random.nextInt(rows);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.LikeDbStorage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Популярные фильмы: сортировка по счётчику лайков в SQL против {@link PopularityIndex} с выборкой
+ * найденных фильмов по id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopularityBenchmark {
+
+    private static final int CONTENDED_THREADS = 8;
+    private static final int COUNT = 10;
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"sql", "index"})
+    private String source;
+
+    private FilmDbStorage films;
+    private PopularityIndex index;
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = Datasets.database();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        films = new FilmDbStorage(jdbcTemplate);
+        LikeDbStorage likes = new LikeDbStorage(jdbcTemplate);
+        Datasets.fillFilms(films, rows);
+        Datasets.likes(rows, rows, likes::addLikes);
+
+        index = new PopularityIndex();
+        Map<Integer, Integer> likeCounts = likes.getLikeCounts();
+        films.exportAll(film -> index.addFilm(film, likeCounts.getOrDefault(film.getId(), 0)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return popular();
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public List<Film> getPopularContended() {
+        return popular();
+    }
+
+    private List<Film> popular() {
+        if (source.equals("sql")) {
+            return films.getPopular(COUNT);
+        }
+        return films.getByIds(index.getTop(COUNT));
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.RecommendationModel;
+
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Модель рекомендаций: полная перестройка, память готовой модели и выдача рекомендаций по ней.
+ * Пользователи и фильмы задаются отдельно; по умолчанию — 1 млн пользователей на 100 тыс. фильмов,
+ * у каждого пользователя в среднем {@code likesPerUser} лайков. {@code footprint} считает, сколько
+ * кучи удерживает построенная модель; сколько перестройка выделяет по пути, показывает {@code -prof gc}
+ * ({@code gc.alloc.rate.norm} у {@code rebuild}).
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RecommendationBenchmark {
+
+    private static final int CONTENDED_THREADS = 8;
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"100000"})
+    private int films;
+
+    @Param({"10"})
+    private int likesPerUser;
+
+    private final Map<Integer, int[]> likesByUser = new HashMap<>();
+    private RecommendationModel model;
+
+    /**
+     * Память готовой модели, которую JMH выводит рядом со временем перестройки.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long likes;
+        public long bytesPerLike;
+        public long retainedMegabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            likes = 0;
+            bytesPerLike = 0;
+            retainedMegabytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<Integer, int[]> collected = new HashMap<>();
+        Datasets.likes(films, users, (long) users * likesPerUser, (filmIds, userIds) -> {
+            for (int i = 0; i < filmIds.length; i++) {
+                int[] current = collected.getOrDefault(userIds[i], new int[0]);
+                int[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = filmIds[i];
+                collected.put(userIds[i], next);
+            }
+        });
+        collected.forEach((userId, filmIds) -> likesByUser.put(userId, Arrays.stream(filmIds)
+                .distinct()
+                .toArray()));
+
+        model = new RecommendationModel();
+        model.rebuild(this::export);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public RecommendationModel rebuild() {
+        RecommendationModel rebuilt = new RecommendationModel();
+        rebuilt.rebuild(this::export);
+        return rebuilt;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 1)
+    public void footprint(Footprint footprint) {
+        long before = Heap.usedAfterGc();
+        RecommendationModel built = new RecommendationModel();
+        built.rebuild(this::export);
+        long retained = Heap.usedAfterGc() - before;
+        Reference.reachabilityFence(built);
+
+        footprint.likes = likesByUser.values().stream().mapToLong(filmIds -> filmIds.length).sum();
+        footprint.bytesPerLike = retained / footprint.likes;
+        footprint.retainedMegabytes = retained >> 20;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public int[] recommend() {
+        return model.recommend(randomUser(), 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Threads(CONTENDED_THREADS)
+    public int[] recommendContended() {
+        return model.recommend(randomUser(), 10);
+    }
+
+    private void export(BiConsumer<Integer, int[]> consumer) {
+        likesByUser.forEach(consumer);
+    }
+
+    private int randomUser() {
+        return 1 + ThreadLocalRandom.current().nextInt(users);
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.lang.ref.Reference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Память под связи дружбы в памяти: прежняя раскладка {@code Map<Integer, Set<Integer>>} с упакованными
+ * id против массивов int в {@link InMemoryUserStorage}. Каждая итерация строит связи заново и считает
+ * прирост занятой кучи после сборки мусора; пользователи создаются до замера и в него не входят.
+ * По умолчанию {@code users} подобран так, чтобы взаимных связей вышло около 10 млн. Счётчики JMH
+ * суммирует по итерациям, поэтому замеряется одна.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RelationFootprintBenchmark {
+
+    @Param({"275000"})
+    private int users;
+
+    @Param({"boxed", "primitive"})
+    private String layout;
+
+    private InMemoryUserStorage storage;
+
+    /**
+     * Результаты замера, которые JMH выводит рядом со временем заполнения.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long relations;
+        public long bytesPerRelation;
+        public long retainedMegabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            relations = 0;
+            bytesPerRelation = 0;
+            retainedMegabytes = 0;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        storage = null;
+        if (layout.equals("primitive")) {
+            storage = new InMemoryUserStorage();
+            Datasets.fillUsers(storage, users);
+        }
+    }
+
+    @Benchmark
+    public void fill(Footprint footprint) {
+        long before = Heap.usedAfterGc();
+        Object relations;
+        long count;
+        if (layout.equals("boxed")) {
+            ConcurrentHashMap<Integer, Set<Integer>> friends = new ConcurrentHashMap<>();
+            Datasets.friends(users, (userIds, friendIds) -> {
+                for (int i = 0; i < userIds.length; i++) {
+                    friends.computeIfAbsent(userIds[i], k -> ConcurrentHashMap.newKeySet()).add(friendIds[i]);
+                    friends.computeIfAbsent(friendIds[i], k -> ConcurrentHashMap.newKeySet()).add(userIds[i]);
+                }
+            });
+            relations = friends;
+            count = friends.values().stream().mapToLong(Set::size).sum();
+        } else {
+            Datasets.friends(users, storage::addFriends);
+            relations = storage;
+            long[] total = new long[1];
+            storage.exportFriends((userId, friendIds) -> total[0] += friendIds.length);
+            count = total[0];
+        }
+        long retained = Heap.usedAfterGc() - before;
+        Reference.reachabilityFence(relations);
+
+        footprint.relations = count;
+        footprint.bytesPerRelation = retained / count;
+        footprint.retainedMegabytes = retained >> 20;
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserStorageBenchmark {
+
+    private static final int CONTENDED_THREADS = 8;
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"db", "memory"})
+    private String storage;
+
+    private UserStorage users;
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (storage.equals("db")) {
+            dataSource = Datasets.database();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            users = new UserDbStorage(jdbcTemplate, new FriendDbStorage(jdbcTemplate));
+        } else {
+            users = new InMemoryUserStorage();
+        }
+        Datasets.fillUsers(users, rows);
+        Datasets.friends(rows, users::addFriends);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    public List<User> getAll() {
+        return users.getAll();
+    }
+
+    @Benchmark
+    public Optional<User> getById() {
+        return users.getById(randomId());
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        int userId = randomId();
+        return users.getCommonFriends(userId, userId % rows + 1);
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public Optional<User> getByIdContended() {
+        return users.getById(randomId());
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public List<User> getCommonFriendsContended() {
+        int userId = randomId();
+        return users.getCommonFriends(userId, userId % rows + 1);
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
@@ -0,0 +1,272 @@
+package ru.yandex.practicum.filmorate.load;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки на REST API по открытой модели: запросы приходят пуассоновским потоком с заданной
+ * средней частотой независимо от того, завершились ли предыдущие, и каждый выполняется в своём
+ * виртуальном потоке. Задержка считается от запланированного момента отправки, поэтому очередь
+ * на клиенте или сервере не прячется из замера. Перед замером создаются фильмы, пользователи и дружба.
+ * Без параметра {@code target} приложение поднимается в этом же процессе на H2 в памяти.
+ *
+ * <p>Параметры {@code key=value}: target, rate (запросов в секунду), duration и warmup (секунды),
+ * films, users, mix (например {@code popular=80,like=15,friend=5}), report (путь к JSON-отчёту).
+ * Для приложения в этом же процессе: threads ({@code platform} или {@code virtual}) и database
+ * ({@code mem} или {@code file} — файловая H2, где запросы упираются в дисковый ввод-вывод),
+ * web ({@code servlet} или {@code reactive} — WebFlux и R2DBC из профиля {@code reactive}).
+ * Сравнение режимов потоков — два запуска с одинаковой смесью, например
+ * {@code mix=popular=50,like=50 database=file threads=platform} и то же с {@code threads=virtual}
+ * или {@code web=reactive}. Для приложения в этом же процессе в отчёт попадает и число потоков JVM:
+ * пик за время замера и сколько живо в конце; виртуальные потоки в это число не входят.
+ */
+public final class LoadGenerator {
+
+    private static final int SEED_CHUNK_SIZE = 1000;
+    private static final int FRIENDS_PER_USER = 10;
+    private static final int MAX_LOGGED_ERRORS = 10;
+
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final AtomicInteger errorsLogged = new AtomicInteger();
+
+    private LoadGenerator(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("rate", "200");
+        options.put("duration", "30");
+        options.put("warmup", "5");
+        options.put("films", "1000");
+        options.put("users", "1000");
+        options.put("mix", "popular=80,like=15,friend=5");
+        options.put("report", "target/load-report.json");
+        options.put("threads", "platform");
+        options.put("database", "mem");
+        options.put("web", "servlet");
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Ожидается параметр вида key=value: " + arg);
+            }
+            options.put(pair[0], pair[1]);
+        }
+
+        ConfigurableApplicationContext app = null;
+        String target = options.get("target");
+        if (target == null) {
+            String url = switch (options.get("database")) {
+                case "mem" -> "jdbc:h2:mem:load;DB_CLOSE_DELAY=-1";
+                case "file" -> "jdbc:h2:file:./target/load-db/filmorate";
+                default -> throw new IllegalArgumentException("database должен быть mem или file");
+            };
+            boolean virtual = switch (options.get("threads")) {
+                case "platform" -> false;
+                case "virtual" -> true;
+                default -> throw new IllegalArgumentException("threads должен быть platform или virtual");
+            };
+            String[] profiles = switch (options.get("web")) {
+                case "servlet" -> new String[0];
+                case "reactive" -> new String[]{"reactive"};
+                default -> throw new IllegalArgumentException("web должен быть servlet или reactive");
+            };
+            app = new SpringApplicationBuilder(FilmorateApplication.class)
+                    .profiles(profiles)
+                    .properties("server.port=0",
+                            "spring.datasource.url=" + url,
+                            "spring.threads.virtual.enabled=" + virtual,
+                            "logging.level.ru.yandex.practicum.filmorate=WARN")
+                    .run();
+            target = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+        }
+
+        try {
+            new LoadGenerator(options).run(target, app != null);
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+    }
+
+    private void run(String target, boolean inProcess) throws Exception {
+        String prefix = "load" + System.currentTimeMillis() + "_";
+        int[] filmIds = seedFilms(target, Integer.parseInt(options.get("films")));
+        int[] userIds = seedUsers(target, prefix, Integer.parseInt(options.get("users")));
+        System.out.printf("Создано фильмов: %d, пользователей: %d%n", filmIds.length, userIds.length);
+
+        TrafficMix mix = new TrafficMix(options.get("mix"), target, filmIds, userIds);
+        LatencyStats stats = new LatencyStats();
+        double rate = Double.parseDouble(options.get("rate"));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+
+        SplittableRandom random = new SplittableRandom();
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean peakReset = false;
+        for (long next = start; next < end; next += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos)) {
+            for (long now = System.nanoTime(); now < next; now = System.nanoTime()) {
+                LockSupport.parkNanos(next - now);
+            }
+            long intended = next;
+            boolean measured = intended >= measureFrom;
+            if (measured && !peakReset) {
+                threads.resetPeakThreadCount();
+                peakReset = true;
+            }
+            TrafficMix.Call call = mix.next(random);
+            requests.execute(() -> send(call, intended, measured ? stats : null));
+        }
+        requests.shutdown();
+        if (!requests.awaitTermination(1, TimeUnit.MINUTES)) {
+            System.out.println("Не все запросы завершились за минуту после окончания замера");
+        }
+
+        Map<String, Object> jvmThreads = new LinkedHashMap<>();
+        if (inProcess) {
+            jvmThreads.put("peak", threads.getPeakThreadCount());
+            jvmThreads.put("live", threads.getThreadCount());
+        }
+
+        double seconds = durationNanos / 1e9;
+        stats.print(seconds);
+        if (inProcess) {
+            System.out.printf("Потоков JVM: пик %d, в конце %d%n", jvmThreads.get("peak"), jvmThreads.get("live"));
+        }
+        Path report = Path.of(options.get("report"));
+        stats.writeJson(report, seconds, new LinkedHashMap<>(options), jvmThreads);
+        System.out.println("Отчёт сохранён в " + report.toAbsolutePath());
+    }
+
+    private void send(TrafficMix.Call call, long intendedNanos, LatencyStats stats) {
+        boolean failed;
+        try {
+            HttpResponse<Void> response = client.send(call.request(), HttpResponse.BodyHandlers.discarding());
+            failed = response.statusCode() >= 500;
+        } catch (IOException e) {
+            failed = true;
+            if (errorsLogged.getAndIncrement() < MAX_LOGGED_ERRORS) {
+                System.err.println(call.endpoint() + ": " + e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (stats != null) {
+            stats.record(call.endpoint(), System.nanoTime() - intendedNanos, failed);
+        }
+    }
+
+    private int[] seedFilms(String target, int count) throws Exception {
+        List<Integer> ids = new ArrayList<>(count);
+        for (int from = 0; from < count; from += SEED_CHUNK_SIZE) {
+            List<Map<String, Object>> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(from + SEED_CHUNK_SIZE, count); i++) {
+                chunk.add(Map.of(
+                        "name", "Фильм " + i,
+                        "description", "Описание фильма " + i,
+                        "releaseDate", (1950 + i % 70) + "-01-01",
+                        "duration", 90 + i % 60,
+                        "mpa", Map.of("id", 1 + i % 5),
+                        "genres", List.of(Map.of("id", 1 + i % 6))));
+            }
+            List<Map<String, Object>> results = objectMapper.readValue(post(target + "/films/bulk", chunk),
+                    new TypeReference<>() {
+                    });
+            for (Map<String, Object> result : results) {
+                if (result.get("id") != null) {
+                    ids.add(((Number) result.get("id")).intValue());
+                }
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int[] seedUsers(String target, String prefix, int count) throws Exception {
+        List<Map<String, Object>> friends = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(count);
+        for (int from = 0; from < count; from += SEED_CHUNK_SIZE) {
+            List<Map<String, Object>> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(from + SEED_CHUNK_SIZE, count); i++) {
+                chunk.add(Map.of(
+                        "email", prefix + i + "@load.ru",
+                        "login", prefix + i,
+                        "name", "Пользователь " + i,
+                        "birthday", (1960 + i % 40) + "-01-01"));
+                for (int k = 0; k < FRIENDS_PER_USER; k++) {
+                    friends.add(Map.of("user", prefix + i, "friend", prefix + random.nextInt(count)));
+                }
+            }
+            post(target + "/users/bulk", chunk);
+        }
+        for (int from = 0; from < friends.size(); from += SEED_CHUNK_SIZE) {
+            post(target + "/users/friends/bulk", friends.subList(from, Math.min(from + SEED_CHUNK_SIZE, friends.size())));
+        }
+
+        List<Integer> ids = new ArrayList<>(count);
+        String cursor = "0";
+        while (cursor != null) {
+            HttpResponse<String> page = client.send(HttpRequest.newBuilder(
+                            URI.create(target + "/users?limit=" + SEED_CHUNK_SIZE + "&after=" + cursor)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            for (Map<String, Object> user : objectMapper.readValue(page.body(),
+                    new TypeReference<List<Map<String, Object>>>() {
+                    })) {
+                if (((String) user.get("login")).startsWith(prefix)) {
+                    ids.add(((Number) user.get("id")).intValue());
+                }
+            }
+            cursor = page.headers().firstValue("X-Next-Cursor").orElse(null);
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private String post(String url, Object body) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("Не удалось заполнить данные: " + url + " -> " + response.statusCode()
+                    + " " + response.body());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Смесь операций с весами в процентах, например {@code popular=80,like=15,friend=5}.
+ * Фильмы для лайков выбираются с перекосом к первым id, как у реальной популярности.
+ */
+final class TrafficMix {
+
+    enum Operation { POPULAR, LIKE, FRIEND }
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final String baseUrl;
+    private final int[] filmIds;
+    private final int[] userIds;
+
+    TrafficMix(String mix, String baseUrl, int[] filmIds, int[] userIds) {
+        Map<Operation, Integer> weights = parse(mix);
+        this.operations = weights.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Сумма весов в смеси должна быть положительной: " + mix);
+        }
+        this.baseUrl = baseUrl;
+        this.filmIds = filmIds;
+        this.userIds = userIds;
+    }
+
+    Call next(SplittableRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = 0;
+        while (roll >= cumulativeWeights[index]) {
+            index++;
+        }
+
+        return switch (operations[index]) {
+            case POPULAR -> new Call("GET /films/popular", request("/films/popular?count=10").GET().build());
+            case LIKE -> {
+                int filmId = filmIds[(int) (filmIds.length * Math.pow(random.nextDouble(), 3))];
+                int userId = userIds[random.nextInt(userIds.length)];
+                yield new Call("PUT /films/{id}/like/{userId}",
+                        request("/films/" + filmId + "/like/" + userId).PUT(HttpRequest.BodyPublishers.noBody()).build());
+            }
+            case FRIEND -> {
+                int userId = userIds[random.nextInt(userIds.length)];
+                int friendId = userIds[random.nextInt(userIds.length)];
+                String path = "/users/" + userId + "/friends/" + friendId;
+                yield random.nextBoolean()
+                        ? new Call("PUT /users/{id}/friends/{friendId}",
+                                request(path).PUT(HttpRequest.BodyPublishers.noBody()).build())
+                        : new Call("DELETE /users/{id}/friends/{friendId}", request(path).DELETE().build());
+            }
+        };
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path));
+    }
+
+    private static Map<Operation, Integer> parse(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Некорректный элемент смеси: " + part);
+            }
+            weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+
+    record Call(String endpoint, HttpRequest request) {
+    }
+}
@@ -2,22 +2,33 @@ package ru.yandex.practicum.filmorate.controller;
 
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/films")
+@Profile("!reactive")
 @Slf4j
 public class FilmController {
     private final Map<Integer, Film> films = new HashMap<>();
@@ -26,10 +37,17 @@ public class FilmController {
     private final FilmService filmService;
 
     private static final LocalDate MIN_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NEXT_OFFSET_HEADER = "X-Next-Offset";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -41,6 +59,19 @@ public class FilmController {
 
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<ImportResult> importFilms(@RequestBody List<Film> films) {
+        log.info("Получен запрос на импорт {} фильмов", films.size());
+        return filmService.importFilms(films.iterator());
+    }
+
+    @PostMapping(value = "/bulk", consumes = NDJSON)
+    public List<ImportResult> importFilms(HttpServletRequest request) throws IOException {
+        log.info("Получен запрос на потоковый импорт фильмов");
+        Iterator<Film> films = JsonStreams.readLines(request.getInputStream(), objectMapper.readerFor(Film.class));
+        return filmService.importFilms(films);
+    }
+
     @PutMapping
     public Film updateFilm(@Valid @RequestBody Film film) {
         log.info("Получен запрос на обновление фильма: {}", film);
@@ -52,11 +83,54 @@ public class FilmController {
     }
 
     @GetMapping
-    public List<Film> getAllFilms() {
-        log.info("Получен запрос на получение всех фильмов");
+    public ResponseEntity<List<Film>> getAllFilms(@RequestParam(required = false) Integer after,
+                                                  @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение всех фильмов");
+            return ResponseEntity.ok(filmService.getAll());
+        }
+
+        int afterId = after != null ? after : 0;
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        log.info("Получен запрос на получение страницы фильмов после id {}, размер {}", afterId, pageSize);
 
-        return filmService.getAll();
+        List<Film> page = filmService.getPage(afterId, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return response.body(page);
+    }
 
+    @GetMapping(value = "/export", produces = NDJSON)
+    public StreamingResponseBody exportFilms() {
+        log.info("Получен запрос на выгрузку всех фильмов");
+
+        return outputStream -> filmService.exportAll(film -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(film));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<Film>> searchFilms(@RequestParam String q,
+                                                  @RequestParam(required = false) Integer genreId,
+                                                  @RequestParam(required = false) Integer mpaId,
+                                                  @RequestParam(defaultValue = "0") int offset,
+                                                  @RequestParam(defaultValue = "20") int limit) {
+        log.info("Получен запрос на поиск фильмов «{}», жанр {}, MPA {}, смещение {}, размер {}",
+                q, genreId, mpaId, offset, limit);
+
+        List<Film> page = filmService.search(q, genreId, mpaId, offset, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == limit) {
+            response.header(NEXT_OFFSET_HEADER, String.valueOf(offset + limit));
+        }
+        return response.body(page);
     }
 
     @GetMapping("/{id}")
@@ -65,6 +139,12 @@ public class FilmController {
         return filmService.getById(id);
     }
 
+    @GetMapping("/{id}/similar")
+    public List<Film> getSimilar(@PathVariable int id, @RequestParam(defaultValue = "10") int count) {
+        log.info("Получен запрос на получение {} фильмов, похожих на фильм {}", count, id);
+        return filmService.getSimilar(id, count);
+    }
+
     private void validateFilm(Film film) {
         if (film.getName() == null || film.getName().isBlank()) {
             log.warn("Название фильма не может быть пустым");
@@ -101,9 +181,11 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopular(@RequestParam(defaultValue = "10") int count) {
-        log.info("Получен запрос на получение {} популярных фильмов", count);
-        return filmService.getPopular(count);
+    public List<Film> getPopular(@RequestParam(defaultValue = "10") int count,
+                                 @RequestParam(required = false) Integer genreId,
+                                 @RequestParam(required = false) Integer year) {
+        log.info("Получен запрос на получение {} популярных фильмов, жанр {}, год {}", count, genreId, year);
+        return filmService.getPopular(count, genreId, year);
     }
 
 
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import ru.yandex.practicum.filmorate.ValidationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Ленивое чтение тела запроса по одному объекту, чтобы импорт любого размера не держал весь вход в памяти.
+ * Ошибка разбора отдельного элемента превращается в {@link ValidationException} при вызове {@code next()},
+ * так что импорт записывает её в отчёт, а не обрывает запрос.
+ */
+final class JsonStreams {
+
+    private JsonStreams() {
+    }
+
+    static <T> Iterator<T> readLines(InputStream input, ObjectReader reader) {
+        Iterator<String> lines = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)).lines()
+                .filter(line -> !line.isBlank())
+                .iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return lines.hasNext();
+            }
+
+            @Override
+            public T next() {
+                try {
+                    return reader.readValue(lines.next());
+                } catch (JsonProcessingException e) {
+                    throw new ValidationException("Некорректный JSON: " + e.getOriginalMessage());
+                }
+            }
+        };
+    }
+
+    /**
+     * Элементы JSON-массива. Ошибка отображения одного элемента не мешает читать следующие, а после
+     * синтаксической ошибки (обрезанный массив, {@code {"login": }}) продолжать разбор нельзя: она отдаётся
+     * как {@link ValidationException} из {@code next()}, и на этом поток заканчивается.
+     */
+    static <T> Iterator<T> readArray(InputStream input, ObjectReader reader) throws IOException {
+        MappingIterator<T> values = reader.readValues(input);
+        return new Iterator<>() {
+            private ValidationException failure;
+            private boolean ended;
+
+            @Override
+            public boolean hasNext() {
+                if (failure != null) {
+                    return true;
+                }
+                if (ended) {
+                    return false;
+                }
+                try {
+                    return values.hasNext();
+                } catch (RuntimeException e) {
+                    failure = invalid(e);
+                    ended = true;
+                    return true;
+                }
+            }
+
+            @Override
+            public T next() {
+                if (failure != null) {
+                    ValidationException e = failure;
+                    failure = null;
+                    throw e;
+                }
+                try {
+                    return values.next();
+                } catch (RuntimeJsonMappingException e) {
+                    throw invalid(e);
+                } catch (RuntimeException e) {
+                    ValidationException invalid = invalid(e);
+                    ended = true;
+                    throw invalid;
+                }
+            }
+        };
+    }
+
+    /**
+     * MappingIterator оборачивает ошибку разбора в непроверяемое исключение; всё остальное пробрасывается как есть.
+     */
+    private static ValidationException invalid(RuntimeException e) {
+        if (e instanceof RuntimeJsonMappingException) {
+            return new ValidationException("Некорректный JSON: " + e.getMessage());
+        }
+        if (e.getCause() instanceof JsonProcessingException cause) {
+            return new ValidationException("Некорректный JSON: " + cause.getOriginalMessage());
+        }
+        throw e;
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.service.ReactiveFilmService;
+
+/**
+ * Неблокирующий вариант {@link FilmController} для профиля {@code reactive}: те же пути и формат,
+ * но без поиска, похожих фильмов и рекомендаций, которые живут в индексах сервлетной версии.
+ */
+@RestController
+@RequestMapping("/films")
+@Profile("reactive")
+@Slf4j
+public class ReactiveFilmController {
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final ReactiveFilmService filmService;
+
+    @Autowired
+    public ReactiveFilmController(ReactiveFilmService filmService) {
+        this.filmService = filmService;
+    }
+
+    @PostMapping
+    public Mono<Film> createFilm(@Valid @RequestBody Film film) {
+        log.info("Получен запрос на создание фильма: {}", film);
+        return filmService.create(film);
+    }
+
+    @PostMapping("/bulk")
+    public Flux<ImportResult> importFilms(@RequestBody Flux<Film> films) {
+        log.info("Получен запрос на импорт фильмов");
+        return filmService.importFilms(films);
+    }
+
+    @PutMapping
+    public Mono<Film> updateFilm(@Valid @RequestBody Film film) {
+        log.info("Получен запрос на обновление фильма: {}", film);
+        return filmService.update(film);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<Flux<Film>>> getAllFilms(@RequestParam(required = false) Integer after,
+                                                        @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение всех фильмов");
+            return Mono.just(ResponseEntity.ok(filmService.getAll()));
+        }
+
+        int afterId = after != null ? after : 0;
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        log.info("Получен запрос на получение страницы фильмов после id {}, размер {}", afterId, pageSize);
+
+        return filmService.getPage(afterId, pageSize)
+                .collectList()
+                .map(page -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (page.size() == pageSize) {
+                        response.header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+                    }
+                    return response.body(Flux.fromIterable(page));
+                });
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Film> getFilmById(@PathVariable int id) {
+        log.info("Получен запрос на получение фильма с id: {}", id);
+        return filmService.getById(id);
+    }
+
+    @PutMapping("/{id}/like/{userId}")
+    public Mono<Void> addLike(@PathVariable int id, @PathVariable int userId) {
+        log.info("Получен запрос на добавление лайка фильму {} от пользователя {}", id, userId);
+        return filmService.addLike(id, userId);
+    }
+
+    @DeleteMapping("/{id}/like/{userId}")
+    public Mono<Void> removeLike(@PathVariable int id, @PathVariable int userId) {
+        log.info("Получен запрос на удаление лайка фильму {} от пользователя {}", id, userId);
+        return filmService.removeLike(id, userId);
+    }
+
+    @GetMapping("/popular")
+    public Flux<Film> getPopular(@RequestParam(defaultValue = "10") int count,
+                                 @RequestParam(required = false) Integer genreId,
+                                 @RequestParam(required = false) Integer year) {
+        log.info("Получен запрос на получение {} популярных фильмов, жанр {}, год {}", count, genreId, year);
+        return filmService.getPopular(count, genreId, year);
+    }
+}
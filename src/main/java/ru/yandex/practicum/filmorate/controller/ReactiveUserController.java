@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.FriendLink;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ReactiveUserService;
+
+/**
+ * Неблокирующий вариант {@link UserController} для профиля {@code reactive}. Пакетный импорт
+ * принимает и JSON-массив, и NDJSON и читает тело потоком.
+ */
+@RestController
+@RequestMapping("/users")
+@Profile("reactive")
+@Slf4j
+public class ReactiveUserController {
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final ReactiveUserService userService;
+
+    @Autowired
+    public ReactiveUserController(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    @PostMapping
+    public Mono<User> createUser(@Valid @RequestBody User user) {
+        log.info("Получен запрос на создание пользователя: {}", user);
+        return userService.create(user);
+    }
+
+    @PostMapping("/bulk")
+    public Mono<ImportReport> importUsers(@RequestBody Flux<User> users) {
+        log.info("Получен запрос на импорт пользователей");
+        return userService.importUsers(users);
+    }
+
+    @PostMapping("/friends/bulk")
+    public Mono<ImportReport> importFriends(@RequestBody Flux<FriendLink> links) {
+        log.info("Получен запрос на импорт связей дружбы");
+        return userService.importFriends(links);
+    }
+
+    @PutMapping
+    public Mono<User> updateUser(@Valid @RequestBody User user) {
+        log.info("Получен запрос на обновление пользователя: {}", user);
+        return userService.update(user);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<Flux<User>>> getAllUsers(@RequestParam(required = false) Integer after,
+                                                        @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение всех пользователей");
+            return Mono.just(ResponseEntity.ok(userService.getAll()));
+        }
+
+        int afterId = after != null ? after : 0;
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        log.info("Получен запрос на получение страницы пользователей после id {}, размер {}", afterId, pageSize);
+
+        return userService.getPage(afterId, pageSize)
+                .collectList()
+                .map(page -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (page.size() == pageSize) {
+                        response.header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+                    }
+                    return response.body(Flux.fromIterable(page));
+                });
+    }
+
+    @GetMapping("/{id}")
+    public Mono<User> getUser(@PathVariable int id) {
+        log.info("Получен запрос на получение пользователя с id: {}", id);
+        return userService.getById(id);
+    }
+
+    @PutMapping("/{id}/friends/{friendId}")
+    public Mono<Void> addFriend(@PathVariable int id, @PathVariable int friendId) {
+        log.info("Получен запрос на добавление в друзья: пользователь {} добавляет {}", id, friendId);
+        return userService.addFriend(id, friendId);
+    }
+
+    @DeleteMapping("/{id}/friends/{friendId}")
+    public Mono<Void> removeFriend(@PathVariable int id, @PathVariable int friendId) {
+        log.info("Получен запрос на удаление из друзей: пользователь {} удаляет {}", id, friendId);
+        return userService.removeFriend(id, friendId);
+    }
+
+    @GetMapping("/{id}/friends")
+    public Flux<User> getFriends(@PathVariable int id) {
+        log.info("Получен запрос на получение друзей пользователя {}", id);
+        return userService.getFriends(id);
+    }
+
+    @GetMapping("/{id}/friends/common/{otherId}")
+    public Flux<User> getCommonFriends(@PathVariable int id, @PathVariable int otherId) {
+        log.info("Получен запрос на получение общих друзей пользователей {} и {}", id, otherId);
+        return userService.getCommonFriends(id, otherId);
+    }
+}
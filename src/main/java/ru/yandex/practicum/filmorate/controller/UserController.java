@@ -1,15 +1,25 @@
 package ru.yandex.practicum.filmorate.controller;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendLink;
+import ru.yandex.practicum.filmorate.model.ImportReport;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -17,16 +27,25 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/users")
+@Profile("!reactive")
 @Slf4j
 public class UserController {
     private final Map<Integer, User> users = new HashMap<>();
     private int nextId = 1;
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String NDJSON = "application/x-ndjson";
+
     private final UserService userService;
+    private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FilmService filmService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
 
@@ -40,6 +59,34 @@ public class UserController {
 
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ImportReport importUsers(HttpServletRequest request) throws IOException {
+        log.info("Получен запрос на импорт пользователей");
+        return userService.importUsers(
+                JsonStreams.readArray(request.getInputStream(), objectMapper.readerFor(User.class)));
+    }
+
+    @PostMapping(value = "/bulk", consumes = NDJSON)
+    public ImportReport importUsersStream(HttpServletRequest request) throws IOException {
+        log.info("Получен запрос на потоковый импорт пользователей");
+        return userService.importUsers(
+                JsonStreams.readLines(request.getInputStream(), objectMapper.readerFor(User.class)));
+    }
+
+    @PostMapping(value = "/friends/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ImportReport importFriends(HttpServletRequest request) throws IOException {
+        log.info("Получен запрос на импорт связей дружбы");
+        return userService.importFriends(
+                JsonStreams.readArray(request.getInputStream(), objectMapper.readerFor(FriendLink.class)));
+    }
+
+    @PostMapping(value = "/friends/bulk", consumes = NDJSON)
+    public ImportReport importFriendsStream(HttpServletRequest request) throws IOException {
+        log.info("Получен запрос на потоковый импорт связей дружбы");
+        return userService.importFriends(
+                JsonStreams.readLines(request.getInputStream(), objectMapper.readerFor(FriendLink.class)));
+    }
+
     @PutMapping
     public User updateUser(@Valid @RequestBody User user) {
         log.info("Получен запрос на обновление пользователя: {}", user);
@@ -50,9 +97,23 @@ public class UserController {
     }
 
     @GetMapping
-    public List<User> getAllUsers() {
-        log.info("Получен запрос на получение всех пользователей");
-        return userService.getAll();
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) Integer after,
+                                                  @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение всех пользователей");
+            return ResponseEntity.ok(userService.getAll());
+        }
+
+        int afterId = after != null ? after : 0;
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        log.info("Получен запрос на получение страницы пользователей после id {}, размер {}", afterId, pageSize);
+
+        List<User> page = userService.getPage(afterId, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return response.body(page);
     }
 
     @GetMapping("/{id}")
@@ -107,6 +168,25 @@ public class UserController {
         return userService.getFriends(id);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable int id, @RequestParam(defaultValue = "10") int limit) {
+        log.info("Получен запрос на получение {} рекомендаций друзей для пользователя {}", limit, id);
+        return userService.getFriendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable int id, @RequestParam(defaultValue = "10") int count) {
+        log.info("Получен запрос на получение {} рекомендаций фильмов для пользователя {}", count, id);
+        userService.getById(id);
+        return filmService.getRecommendations(id, count);
+    }
+
+    @GetMapping("/{id}/path/{otherId}")
+    public List<User> getPath(@PathVariable int id, @PathVariable int otherId) {
+        log.info("Получен запрос на поиск цепочки друзей от пользователя {} до {}", id, otherId);
+        return userService.getPath(id, otherId);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getCommonFriends(@PathVariable int id, @PathVariable int otherId) {
         log.info("Получен запрос на получение общих друзей пользователей {} и {}", id, otherId);
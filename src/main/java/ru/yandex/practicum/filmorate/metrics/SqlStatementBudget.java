@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Счётчик SQL-запросов в рамках HTTP-запроса. Запросы вне HTTP-запроса (старт, фоновые потоки) не считаются.
+ * По завершении число запросов пишется в {@code filmorate.http.sql.statements} с тегами метода и шаблона URI.
+ * При превышении бюджета в режиме {@code warn} пишется предупреждение с самым частым запросом — обычно это
+ * и есть N+1, в режиме {@code fail} запрос, вышедший за бюджет, падает с {@link StatementBudgetExceededException}.
+ */
+@Component
+@Slf4j
+public class SqlStatementBudget {
+
+    public enum Mode { OFF, WARN, FAIL }
+
+    private final MeterRegistry registry;
+    private final int budget;
+    private final Mode mode;
+    private final ThreadLocal<RequestStatements> current = new ThreadLocal<>();
+
+    @Autowired
+    public SqlStatementBudget(MeterRegistry registry,
+                              @Value("${filmorate.sql.statement-budget:20}") int budget,
+                              @Value("${filmorate.sql.statement-budget-mode:warn}") String mode) {
+        this.registry = registry;
+        this.budget = budget;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public void begin() {
+        current.set(new RequestStatements());
+    }
+
+    /**
+     * Закрывает подсчёт для текущего потока и возвращает число выполненных запросов.
+     */
+    public int end(String method, String endpoint) {
+        RequestStatements statements = current.get();
+        current.remove();
+        if (statements == null) {
+            return 0;
+        }
+
+        DistributionSummary.builder("filmorate.http.sql.statements")
+                .description("Число SQL-запросов на HTTP-запрос")
+                .tag("method", method)
+                .tag("uri", endpoint)
+                .register(registry)
+                .record(statements.count);
+
+        if (mode == Mode.WARN && statements.count > budget) {
+            Map.Entry<String, Integer> top = statements.mostFrequent();
+            log.warn("{} {} выполнил {} SQL-запросов при бюджете {}; чаще всего ({} раз): {}",
+                    method, endpoint, statements.count, budget, top.getValue(), top.getKey());
+        }
+        return statements.count;
+    }
+
+    void onStatement(String sql) {
+        RequestStatements statements = current.get();
+        if (statements == null) {
+            return;
+        }
+        statements.add(sql);
+        if (mode == Mode.FAIL && statements.count > budget) {
+            throw new StatementBudgetExceededException("Превышен бюджет SQL-запросов (" + budget
+                    + ") на HTTP-запрос; последний запрос: " + sql);
+        }
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    private static final class RequestStatements {
+        private final Map<String, Integer> bySql = new HashMap<>();
+        private int count;
+
+        void add(String sql) {
+            count++;
+            bySql.merge(sql, 1, Integer::sum);
+        }
+
+        Map.Entry<String, Integer> mostFrequent() {
+            return bySql.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .orElse(Map.entry("", 0));
+        }
+    }
+}
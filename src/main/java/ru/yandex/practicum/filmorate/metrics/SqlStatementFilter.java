@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Открывает подсчёт SQL-запросов на время обработки HTTP-запроса. Асинхронная часть
+ * (например, потоковая выгрузка) идёт в другом потоке и не учитывается.
+ */
+@Component
+@Profile("!reactive")
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    private final SqlStatementBudget budget;
+
+    @Autowired
+    public SqlStatementFilter(SqlStatementBudget budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        budget.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            budget.end(request.getMethod(), pattern != null ? pattern.toString() : "UNKNOWN");
+        }
+    }
+}
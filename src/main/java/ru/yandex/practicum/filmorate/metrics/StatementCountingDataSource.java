@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Источник соединений, который сообщает {@link SqlStatementBudget} о каждом подготовленном или созданном запросе.
+ */
+class StatementCountingDataSource extends DelegatingDataSource {
+
+    private final Supplier<SqlStatementBudget> budget;
+
+    StatementCountingDataSource(DataSource target, Supplier<SqlStatementBudget> budget) {
+        super(target);
+        this.budget = budget;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (isStatement(method)) {
+                        budget.get().onStatement(args != null && args.length > 0 && args[0] instanceof String sql
+                                ? sql : method.getName());
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static boolean isStatement(Method method) {
+        String name = method.getName();
+        return name.equals("prepareStatement") || name.equals("prepareCall") || name.equals("createStatement");
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReport {
+    private long received;
+    private long imported;
+    private long skipped;
+    private long failed;
+    private long durationMs;
+    private long rowsPerSecond;
+    private List<ImportResult> errors = new ArrayList<>();
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+@Data
+public class ImportResult {
+    private int index;
+    private Integer id;
+    private String error;
+
+    public ImportResult(int index) {
+        this.index = index;
+    }
+}
@@ -0,0 +1,275 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.IntIntMap;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Полнотекстовый поиск по названию и описанию фильмов. Для каждого слова хранится отсортированный
+ * массив id фильмов, для каждой триграммы — слова, в которые она входит: по ним ищутся слова,
+ * содержащие часть слова из запроса. Жанры и MPA хранятся такими же массивами, и фильтр
+ * по ним — пересечение массивов. Слова приводятся к нижнему регистру, «ё» считается «е».
+ * Запись сериализуется, чтение идёт без блокировок по опубликованным массивам.
+ */
+@Component
+@Profile("!reactive")
+public class FilmSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final int MIN_PARTIAL_LENGTH = 3;
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int EXACT_BONUS = 2;
+
+    private final ConcurrentHashMap<Integer, Document> documents = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, int[]> postings = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, int[]> filmsByGenre = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, int[]> filmsByMpa = new ConcurrentHashMap<>();
+
+    public synchronized void clear() {
+        documents.clear();
+        postings.clear();
+        trigrams.clear();
+        filmsByGenre.clear();
+        filmsByMpa.clear();
+    }
+
+    public synchronized void addFilm(Film film) {
+        Document previous = documents.remove(film.getId());
+        if (previous != null) {
+            unlink(film.getId(), previous);
+        }
+        Document document = Document.of(film);
+        documents.put(film.getId(), document);
+        link(film.getId(), document);
+    }
+
+    public void updateFilm(Film film) {
+        addFilm(film);
+    }
+
+    public synchronized void removeFilm(int filmId) {
+        Document previous = documents.remove(filmId);
+        if (previous != null) {
+            unlink(filmId, previous);
+        }
+    }
+
+    /**
+     * До {@code limit} фильмов, где каждое слово запроса встречается целиком или как часть слова, по убыванию
+     * релевантности, при равенстве — по id. Фильтры по жанру и MPA необязательны.
+     */
+    public int[] search(String query, Integer genreId, Integer mpaId, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return SortedIntArrays.EMPTY;
+        }
+
+        List<String[]> matchedTerms = new ArrayList<>(queryTokens.size());
+        int[] candidates = null;
+        for (String token : queryTokens) {
+            String[] terms = matchingTerms(token);
+            matchedTerms.add(terms);
+            int[] matches = SortedIntArrays.EMPTY;
+            for (String term : terms) {
+                matches = union(matches, postings.getOrDefault(term, SortedIntArrays.EMPTY));
+            }
+            candidates = candidates == null ? matches : SortedIntArrays.intersect(candidates, matches);
+            if (candidates.length == 0) {
+                return candidates;
+            }
+        }
+        if (genreId != null) {
+            candidates = SortedIntArrays.intersect(candidates, filmsByGenre.getOrDefault(genreId, SortedIntArrays.EMPTY));
+        }
+        if (mpaId != null) {
+            candidates = SortedIntArrays.intersect(candidates, filmsByMpa.getOrDefault(mpaId, SortedIntArrays.EMPTY));
+        }
+
+        IntIntMap scores = new IntIntMap(candidates.length);
+        int total = Math.max(documents.size(), 1);
+        for (int filmId : candidates) {
+            Document document = documents.get(filmId);
+            if (document == null) {
+                continue;
+            }
+            int score = 0;
+            for (int i = 0; i < queryTokens.size(); i++) {
+                score += document.score(queryTokens.get(i), matchedTerms.get(i), postings, total);
+            }
+            scores.putIfAbsent(filmId, Math.max(score, 1));
+        }
+        return TopK.select(scores, limit);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private String[] matchingTerms(String token) {
+        if (token.length() < MIN_PARTIAL_LENGTH) {
+            return postings.containsKey(token) ? new String[]{token} : new String[0];
+        }
+
+        Set<String> smallest = null;
+        for (String trigram : trigramsOf(token)) {
+            Set<String> terms = trigrams.get(trigram);
+            if (terms == null) {
+                return new String[0];
+            }
+            if (smallest == null || terms.size() < smallest.size()) {
+                smallest = terms;
+            }
+        }
+        return smallest.stream()
+                .filter(term -> term.contains(token))
+                .toArray(String[]::new);
+    }
+
+    private void link(int filmId, Document document) {
+        for (String term : document.terms()) {
+            int[] before = postings.get(term);
+            postings.compute(term, (key, current) -> SortedIntArrays.insert(current, filmId));
+            if (before == null) {
+                for (String trigram : trigramsOf(term)) {
+                    trigrams.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(term);
+                }
+            }
+        }
+        for (int genreId : document.genreIds) {
+            filmsByGenre.compute(genreId, (key, current) -> SortedIntArrays.insert(current, filmId));
+        }
+        filmsByMpa.compute(document.mpaId, (key, current) -> SortedIntArrays.insert(current, filmId));
+    }
+
+    private void unlink(int filmId, Document document) {
+        for (String term : document.terms()) {
+            int[] remaining = postings.computeIfPresent(term,
+                    (key, current) -> emptyToNull(SortedIntArrays.remove(current, filmId)));
+            if (remaining == null) {
+                for (String trigram : trigramsOf(term)) {
+                    trigrams.computeIfPresent(trigram, (key, terms) -> {
+                        terms.remove(term);
+                        return terms.isEmpty() ? null : terms;
+                    });
+                }
+            }
+        }
+        for (int genreId : document.genreIds) {
+            filmsByGenre.computeIfPresent(genreId,
+                    (key, current) -> emptyToNull(SortedIntArrays.remove(current, filmId)));
+        }
+        filmsByMpa.computeIfPresent(document.mpaId,
+                (key, current) -> emptyToNull(SortedIntArrays.remove(current, filmId)));
+    }
+
+    private static List<String> trigramsOf(String term) {
+        if (term.length() < MIN_PARTIAL_LENGTH) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>(term.length() - 2);
+        for (int i = 0; i + MIN_PARTIAL_LENGTH <= term.length(); i++) {
+            result.add(term.substring(i, i + MIN_PARTIAL_LENGTH));
+        }
+        return result;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        int[] result = new int[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j == b.length || (i < a.length && a[i] <= b[j])) {
+                next = a[i++];
+                if (j < b.length && b[j] == next) {
+                    j++;
+                }
+            } else {
+                next = b[j++];
+            }
+            result[size++] = next;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] emptyToNull(int[] ids) {
+        return ids.length == 0 ? null : ids;
+    }
+
+    private record Document(String[] nameTerms, String[] descriptionTerms, int mpaId, int[] genreIds) {
+
+        static Document of(Film film) {
+            int mpaId = film.getMpa() != null ? film.getMpa().getId() : 0;
+            int[] genreIds = film.getGenres() == null ? SortedIntArrays.EMPTY : SortedIntArrays.of(
+                    film.getGenres().stream().mapToInt(Film.Genre::getId).toArray());
+            return new Document(distinct(film.getName()), distinct(film.getDescription()), mpaId, genreIds);
+        }
+
+        Set<String> terms() {
+            Set<String> terms = new HashSet<>(Arrays.asList(nameTerms));
+            terms.addAll(Arrays.asList(descriptionTerms));
+            return terms;
+        }
+
+        /**
+         * Вклад одного слова запроса: лучший из совпавших терминов документа с учётом поля,
+         * точного совпадения и редкости термина.
+         */
+        int score(String token, String[] matched, ConcurrentHashMap<String, int[]> postings, int total) {
+            int best = 0;
+            for (String term : matched) {
+                int weight = contains(nameTerms, term) ? NAME_WEIGHT
+                        : contains(descriptionTerms, term) ? DESCRIPTION_WEIGHT : 0;
+                if (weight == 0) {
+                    continue;
+                }
+                if (term.equals(token)) {
+                    weight *= EXACT_BONUS;
+                }
+                int frequency = Math.max(postings.getOrDefault(term, SortedIntArrays.EMPTY).length, 1);
+                int idf = 1 + (int) (100 * Math.log((double) total / frequency + 1));
+                best = Math.max(best, weight * idf);
+            }
+            return best;
+        }
+
+        private static String[] distinct(String text) {
+            return tokenize(text).stream().distinct().sorted().toArray(String[]::new);
+        }
+
+        private static boolean contains(String[] sortedTerms, String term) {
+            return Arrays.binarySearch(sortedTerms, term) >= 0;
+        }
+    }
+}
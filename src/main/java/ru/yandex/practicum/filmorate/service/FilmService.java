@@ -1,61 +1,120 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.NotFoundException;
 import ru.yandex.practicum.filmorate.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
+@Profile("!reactive")
+@Slf4j
 public class FilmService {
 
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int LIKE_LOCK_STRIPES = 64;
+
     private final FilmStorage filmStorage;
-    private final UserStorage userStorage;
-    private final MpaService mpaService;
-    private final GenreService genreService;
+    private final FilmValidator validator;
     private final LikeStorage likeStorage;
+    private final UserStorage userStorage;
+    private final PopularityIndex popularityIndex;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final RecommendationModel recommendationModel;
+    private final SimilarFilmsIndex similarFilms;
+    private final FilmSearchIndex searchIndex;
+    // без буфера запись в базу и в индексы — один шаг для пользователя, как pending.compute в буфере
+    private final StripedLocks likeLocks = new StripedLocks(LIKE_LOCK_STRIPES);
 
     @Autowired
-    public FilmService(FilmStorage filmStorage, UserStorage userStorage,
-                       MpaService mpaService, GenreService genreService, LikeStorage likeStorage) {
+    public FilmService(FilmStorage filmStorage,
+                       FilmValidator validator, LikeStorage likeStorage, UserStorage userStorage,
+                       PopularityIndex popularityIndex, LikeWriteBuffer likeWriteBuffer,
+                       RecommendationModel recommendationModel, SimilarFilmsIndex similarFilms,
+                       FilmSearchIndex searchIndex) {
         this.filmStorage = filmStorage;
-        this.userStorage = userStorage;
-        this.mpaService = mpaService;
-        this.genreService = genreService;
+        this.validator = validator;
         this.likeStorage = likeStorage;
+        this.userStorage = userStorage;
+        this.popularityIndex = popularityIndex;
+        this.likeWriteBuffer = likeWriteBuffer;
+        this.recommendationModel = recommendationModel;
+        this.similarFilms = similarFilms;
+        this.searchIndex = searchIndex;
     }
 
     public List<Film> getAll() {
         return filmStorage.getAll();
     }
 
+    public List<Film> getPage(int afterId, int limit) {
+        validator.validatePageLimit(limit);
+        return filmStorage.getPage(afterId, limit);
+    }
+
+    public void exportAll(Consumer<Film> consumer) {
+        filmStorage.exportAll(consumer);
+    }
+
     public Film create(Film film) {
-        validateFilm(film);
-        validateMpa(film.getMpa());
-        validateGenres(film.getGenres());
-        if (film.getMpa() == null) {
-            Film.Mpa defaultMpa = new Film.Mpa();
-            defaultMpa.setId(1);
-            film.setMpa(defaultMpa);
+        validator.validate(film);
+        Film created = filmStorage.create(film);
+        popularityIndex.addFilm(created);
+        similarFilms.addFilm(created);
+        searchIndex.addFilm(created);
+        return created;
+    }
+
+    public List<ImportResult> importFilms(Iterator<Film> films) {
+        List<ImportResult> results = new ArrayList<>();
+        List<Film> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        List<ImportResult> chunkResults = new ArrayList<>(IMPORT_CHUNK_SIZE);
+
+        while (films.hasNext()) {
+            ImportResult result = new ImportResult(results.size());
+            results.add(result);
+            try {
+                Film film = films.next();
+                validator.validateForImport(film);
+                chunk.add(film);
+                chunkResults.add(result);
+            } catch (ValidationException | NotFoundException e) {
+                result.setError(e.getMessage());
+            }
+
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                importChunk(chunk, chunkResults);
+            }
         }
-        return filmStorage.create(film);
+        importChunk(chunk, chunkResults);
+
+        return results;
     }
 
     public Film update(Film film) {
-        validateFilm(film);
-        validateMpa(film.getMpa());
-        validateGenres(film.getGenres());
-        if (film.getMpa() == null) {
-            Film.Mpa defaultMpa = new Film.Mpa();
-            defaultMpa.setId(1);
-            film.setMpa(defaultMpa);
-        }
-        return filmStorage.update(film);
+        validator.validate(film);
+        Film updated = filmStorage.update(film);
+        popularityIndex.updateFilm(updated);
+        similarFilms.updateFilm(updated);
+        searchIndex.updateFilm(updated);
+        return updated;
     }
 
     public Film getById(int id) {
@@ -64,50 +123,155 @@ public class FilmService {
     }
 
     public void addLike(int filmId, int userId) {
-        userStorage.getById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id " + userId + " не найден"));
-
-        getById(filmId);
-        likeStorage.addLike(filmId, userId);
+        if (likeWriteBuffer.isEnabled()) {
+            // без буфера несуществующие фильм и пользователь дают 404 из внешних ключей, здесь — до очереди
+            requireFilm(filmId);
+            requireUser(userId);
+            likeWriteBuffer.addLike(filmId, userId);
+            return;
+        }
+        likeLocks.withLock(userId, () -> {
+            if (likeStorage.addLike(filmId, userId)) {
+                popularityIndex.addLike(filmId);
+                recommendationModel.addLike(filmId, userId);
+            }
+            return null;
+        });
     }
 
     public void removeLike(int filmId, int userId) {
-        likeStorage.removeLike(filmId, userId);
+        requireFilm(filmId);
+        requireUser(userId);
+        if (likeWriteBuffer.isEnabled()) {
+            likeWriteBuffer.removeLike(filmId, userId);
+            return;
+        }
+        likeLocks.withLock(userId, () -> {
+            if (likeStorage.removeLike(filmId, userId)) {
+                popularityIndex.removeLike(filmId);
+                recommendationModel.removeLike(filmId, userId);
+            }
+            return null;
+        });
     }
 
-    public List<Film> getPopular(int count) {
-        return filmStorage.getPopular(count);
+    public List<Film> getPopular(int count, Integer genreId, Integer year) {
+        validator.validatePageLimit(count);
+        validator.validateGenreId(genreId);
+        return filmStorage.getByIds(popularityIndex.getTop(count, genreId, year));
     }
 
-    private void validateMpa(Film.Mpa mpa) {
-        if (mpa == null || mpa.getId() == 0) {
-            return;
+    public List<Film> getRecommendations(int userId, int count) {
+        validator.validatePageLimit(count);
+        return filmStorage.getByIds(toList(recommendationModel.recommend(userId, count)));
+    }
+
+    public List<Film> getSimilar(int filmId, int count) {
+        validator.validatePageLimit(count);
+        List<Integer> ids = new ArrayList<>();
+        ids.add(filmId);
+        ids.addAll(toList(similarFilms.getSimilar(filmId, count)));
+
+        List<Film> films = filmStorage.getByIds(ids);
+        if (films.isEmpty() || films.get(0).getId() != filmId) {
+            throw new NotFoundException("Фильм с id " + filmId + " не найден");
         }
+        return films.subList(1, films.size());
+    }
 
-        try {
-            mpaService.getMpaById(mpa.getId());
-        } catch (NotFoundException e) {
-            throw new NotFoundException("MPA рейтинг с id " + mpa.getId() + " не найден");
+    /**
+     * Страница результатов полнотекстового поиска: {@code limit} фильмов после первых {@code offset}
+     * по убыванию релевантности.
+     */
+    public List<Film> search(String query, Integer genreId, Integer mpaId, int offset, int limit) {
+        validator.validatePageLimit(limit);
+        if (offset < 0) {
+            throw new ValidationException("Смещение не может быть отрицательным");
+        }
+        if (FilmSearchIndex.tokenize(query).isEmpty()) {
+            throw new ValidationException("Поисковый запрос не может быть пустым");
         }
+        validator.validateGenreId(genreId);
+        validator.validateMpaId(mpaId);
+
+        int[] ranked = searchIndex.search(query, genreId, mpaId, offset + limit);
+        if (ranked.length <= offset) {
+            return List.of();
+        }
+        return filmStorage.getByIds(toList(Arrays.copyOfRange(ranked, offset, ranked.length)));
+    }
+
+    @PostConstruct
+    public void rebuildIndexes() {
+        rebuildPopularity();
+        rebuildRecommendations();
+        similarFilms.rebuild();
     }
 
-    private void validateGenres(List<Film.Genre> genres) {
-        if (genres == null || genres.isEmpty()) {
+    public void rebuildRecommendations() {
+        long start = System.nanoTime();
+        recommendationModel.rebuild(likeStorage::exportByUser);
+        log.info("Модель рекомендаций перестроена за {} мс", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public void rebuildPopularity() {
+        int repaired = likeStorage.rebuildLikeCounts();
+        if (repaired > 0) {
+            log.warn("Счётчики лайков пересчитаны для {} фильмов", repaired);
+        }
+        Map<Integer, Integer> likeCounts = likeStorage.getLikeCounts();
+        popularityIndex.clear();
+        similarFilms.clear();
+        searchIndex.clear();
+        filmStorage.exportAll(film -> {
+            popularityIndex.addFilm(film, likeCounts.getOrDefault(film.getId(), 0));
+            similarFilms.addFilm(film);
+            searchIndex.addFilm(film);
+        });
+    }
+
+    private void importChunk(List<Film> chunk, List<ImportResult> chunkResults) {
+        if (chunk.isEmpty()) {
             return;
         }
 
-        for (Film.Genre genre : genres) {
-            try {
-                genreService.getGenreById(genre.getId());
-            } catch (NotFoundException e) {
-                throw new NotFoundException("Жанр с id " + genre.getId() + " не найден");
+        try {
+            filmStorage.createAll(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                Film film = chunk.get(i);
+                chunkResults.get(i).setId(film.getId());
+                popularityIndex.addFilm(film);
+                similarFilms.addFilm(film);
+                searchIndex.addFilm(film);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Не удалось импортировать пакет из {} фильмов: {}", chunk.size(), e.getMessage());
+            for (ImportResult result : chunkResults) {
+                result.setError("Ошибка записи пакета: " + e.getMostSpecificCause().getMessage());
             }
         }
+
+        chunk.clear();
+        chunkResults.clear();
+    }
+
+    private void requireFilm(int filmId) {
+        if (!popularityIndex.contains(filmId)) {
+            throw new NotFoundException("Фильм с id " + filmId + " не найден");
+        }
+    }
+
+    private void requireUser(int userId) {
+        if (userStorage.getById(userId).isEmpty()) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        }
     }
 
-    private void validateFilm(Film film) {
-        if (film.getName() == null || film.getName().isBlank()) {
-            throw new ValidationException("Название фильма не может быть пустым");
+    private static List<Integer> toList(int[] ids) {
+        List<Integer> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            list.add(id);
         }
+        return list;
     }
-}
\ No newline at end of file
+}
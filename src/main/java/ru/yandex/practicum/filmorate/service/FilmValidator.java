@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.NotFoundException;
+import ru.yandex.practicum.filmorate.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Правила проверки фильмов, общие для сервлетного и реактивного API. Справочники MPA и жанров
+ * лежат в памяти, поэтому проверки не блокируют поток.
+ */
+@Component
+public class FilmValidator {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final LocalDate MIN_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    private static final int DEFAULT_MPA_ID = 1;
+
+    private final MpaService mpaService;
+    private final GenreService genreService;
+
+    @Autowired
+    public FilmValidator(MpaService mpaService, GenreService genreService) {
+        this.mpaService = mpaService;
+        this.genreService = genreService;
+    }
+
+    /**
+     * Проверка фильма перед созданием или обновлением; без MPA фильму назначается рейтинг по умолчанию.
+     */
+    public void validate(Film film) {
+        validateName(film);
+        validateMpa(film.getMpa());
+        validateGenres(film.getGenres());
+        if (film.getMpa() == null) {
+            Film.Mpa defaultMpa = new Film.Mpa();
+            defaultMpa.setId(DEFAULT_MPA_ID);
+            film.setMpa(defaultMpa);
+        }
+    }
+
+    /**
+     * Проверка записи из пакетного импорта: тело не проходит через {@code @Valid}, поэтому здесь
+     * повторяются и ограничения аннотаций модели.
+     */
+    public void validateForImport(Film film) {
+        validateName(film);
+        if (film.getDescription() != null && film.getDescription().length() > 200) {
+            throw new ValidationException("Описание фильма не может превышать 200 символов");
+        }
+        if (film.getReleaseDate() == null || film.getReleaseDate().isBefore(MIN_RELEASE_DATE)) {
+            throw new ValidationException("Дата релиза — не раньше 28 декабря 1895 года");
+        }
+        if (film.getDuration() <= 0) {
+            throw new ValidationException("Продолжительность фильма должна быть положительным числом");
+        }
+        if (film.getMpa() == null) {
+            throw new ValidationException("MPA рейтинг обязателен");
+        }
+        mpaService.getMpaById(film.getMpa().getId());
+        validateGenres(film.getGenres());
+    }
+
+    public void validatePageLimit(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+    }
+
+    public void validateGenreId(Integer genreId) {
+        if (genreId != null) {
+            genreService.getGenreById(genreId);
+        }
+    }
+
+    public void validateMpaId(Integer mpaId) {
+        if (mpaId != null) {
+            mpaService.getMpaById(mpaId);
+        }
+    }
+
+    private void validateName(Film film) {
+        if (film.getName() == null || film.getName().isBlank()) {
+            throw new ValidationException("Название фильма не может быть пустым");
+        }
+    }
+
+    private void validateMpa(Film.Mpa mpa) {
+        if (mpa == null || mpa.getId() == 0) {
+            return;
+        }
+
+        try {
+            mpaService.getMpaById(mpa.getId());
+        } catch (NotFoundException e) {
+            throw new NotFoundException("MPA рейтинг с id " + mpa.getId() + " не найден");
+        }
+    }
+
+    private void validateGenres(List<Film.Genre> genres) {
+        if (genres == null || genres.isEmpty()) {
+            return;
+        }
+
+        for (Film.Genre genre : genres) {
+            try {
+                genreService.getGenreById(genre.getId());
+            } catch (NotFoundException e) {
+                throw new NotFoundException("Жанр с id " + genre.getId() + " не найден");
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntIntMap;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Граф дружбы в памяти: для каждого пользователя — отсортированные массивы id друзей (исходящие связи)
+ * и тех, кто добавил его в друзья (входящие). Массивы не изменяются после публикации, изменения
+ * по одному пользователю сериализуются через {@link ConcurrentHashMap#compute} и заменяют массив целиком.
+ */
+@Component
+@Profile("!reactive")
+public class FriendGraph {
+
+    private static final int MAX_CACHED_SUGGESTIONS = 10_000;
+
+    private final ConcurrentHashMap<Integer, int[]> friends = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, int[]> followers = new ConcurrentHashMap<>();
+
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LinkedHashMap<Integer, Suggestions> suggestions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Suggestions> eldest) {
+            return size() > MAX_CACHED_SUGGESTIONS;
+        }
+    };
+
+    /**
+     * Полностью перестраивает граф из источника, который передаёт пары (пользователь, его друзья).
+     */
+    public synchronized void rebuild(Consumer<BiConsumer<Integer, int[]>> source) {
+        friends.clear();
+        followers.clear();
+        invalidateAll();
+
+        source.accept((userId, friendIds) -> {
+            int[] sorted = SortedIntArrays.of(friendIds);
+            if (sorted.length > 0) {
+                friends.put(userId, sorted);
+            }
+        });
+
+        SortedIntArrays.transpose(friends, followers::put);
+    }
+
+    public void addFriend(int userId, int friendId) {
+        friends.compute(userId, (id, current) -> SortedIntArrays.insert(current, friendId));
+        followers.compute(friendId, (id, current) -> SortedIntArrays.insert(current, userId));
+        invalidateAround(userId);
+    }
+
+    public void removeFriend(int userId, int friendId) {
+        friends.computeIfPresent(userId, (id, current) -> emptyToNull(SortedIntArrays.remove(current, friendId)));
+        followers.computeIfPresent(friendId, (id, current) -> emptyToNull(SortedIntArrays.remove(current, userId)));
+        invalidateAround(userId);
+    }
+
+    /**
+     * Возвращает друзей пользователя по возрастанию id. Массив общий — изменять его нельзя.
+     */
+    public int[] getFriends(int userId) {
+        return friends.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    /**
+     * Возвращает тех, кто добавил пользователя в друзья, по возрастанию id. Массив общий — изменять его нельзя.
+     */
+    public int[] getFollowers(int userId) {
+        return followers.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    public int[] getCommonFriends(int userId, int otherId) {
+        return SortedIntArrays.intersect(getFriends(userId), getFriends(otherId));
+    }
+
+    /**
+     * Друзья друзей, ещё не ставшие друзьями, по убыванию числа общих друзей, затем по id.
+     * Результат кешируется на пользователя и сбрасывается при изменении его связей или связей его друзей.
+     */
+    public int[] getSuggestions(int userId, int limit) {
+        Suggestions cached;
+        synchronized (suggestions) {
+            cached = suggestions.get(userId);
+        }
+        if (cached != null && (cached.limit >= limit || cached.ids.length < cached.limit)) {
+            return Arrays.copyOf(cached.ids, Math.min(limit, cached.ids.length));
+        }
+
+        long version = invalidations.get();
+        int[] ids = computeSuggestions(userId, limit);
+        synchronized (suggestions) {
+            if (invalidations.get() == version) {
+                suggestions.put(userId, new Suggestions(limit, ids));
+            }
+        }
+        return ids.clone();
+    }
+
+    /**
+     * Кратчайшая цепочка пользователей от {@code fromId} до {@code toId} по направленным связям дружбы
+     * длиной не более {@code maxDepth} рёбер, или {@code null}, если такой нет. Двунаправленный поиск
+     * в ширину: прямой идёт по друзьям, обратный — по тем, кто добавил в друзья; каждый шаг раскрывает
+     * целиком меньший фронт, и первая встреча фронтов даёт кратчайший путь.
+     */
+    public int[] findPath(int fromId, int toId, int maxDepth) {
+        if (fromId == toId) {
+            return new int[]{fromId};
+        }
+
+        IntIntMap forwardParents = new IntIntMap(64);
+        IntIntMap backwardParents = new IntIntMap(64);
+        forwardParents.putIfAbsent(fromId, fromId);
+        backwardParents.putIfAbsent(toId, toId);
+        int[] forwardFrontier = {fromId};
+        int[] backwardFrontier = {toId};
+
+        for (int depth = 0; depth < maxDepth; depth++) {
+            boolean forward = forwardFrontier.length <= backwardFrontier.length;
+            int[] frontier = forward ? forwardFrontier : backwardFrontier;
+            IntIntMap parents = forward ? forwardParents : backwardParents;
+            IntIntMap opposite = forward ? backwardParents : forwardParents;
+
+            int[] next = new int[Math.max(frontier.length, 16)];
+            int size = 0;
+            for (int current : frontier) {
+                for (int neighbour : forward ? getFriends(current) : getFollowers(current)) {
+                    if (!parents.putIfAbsent(neighbour, current)) {
+                        continue;
+                    }
+                    if (opposite.containsKey(neighbour)) {
+                        return joinPath(neighbour, forwardParents, backwardParents);
+                    }
+                    if (size == next.length) {
+                        next = Arrays.copyOf(next, size * 2);
+                    }
+                    next[size++] = neighbour;
+                }
+            }
+            if (size == 0) {
+                return null;
+            }
+
+            if (forward) {
+                forwardFrontier = Arrays.copyOf(next, size);
+            } else {
+                backwardFrontier = Arrays.copyOf(next, size);
+            }
+        }
+        return null;
+    }
+
+    public void invalidateAll() {
+        synchronized (suggestions) {
+            invalidations.incrementAndGet();
+            suggestions.clear();
+        }
+    }
+
+    private int[] computeSuggestions(int userId, int limit) {
+        int[] direct = getFriends(userId);
+        IntIntMap mutual = new IntIntMap(direct.length * 8);
+        for (int friendId : direct) {
+            for (int candidate : getFriends(friendId)) {
+                if (candidate != userId && !SortedIntArrays.contains(direct, candidate)) {
+                    mutual.increment(candidate);
+                }
+            }
+        }
+
+        return TopK.select(mutual, limit);
+    }
+
+    private static int[] joinPath(int meetingId, IntIntMap forwardParents, IntIntMap backwardParents) {
+        int[] path = new int[16];
+        int size = 0;
+        for (int id = meetingId; ; id = forwardParents.get(id, id)) {
+            if (size == path.length) {
+                path = Arrays.copyOf(path, size * 2);
+            }
+            path[size++] = id;
+            if (forwardParents.get(id, id) == id) {
+                break;
+            }
+        }
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            int tmp = path[i];
+            path[i] = path[j];
+            path[j] = tmp;
+        }
+        for (int id = meetingId; backwardParents.get(id, id) != id; ) {
+            id = backwardParents.get(id, id);
+            if (size == path.length) {
+                path = Arrays.copyOf(path, size * 2);
+            }
+            path[size++] = id;
+        }
+        return Arrays.copyOf(path, size);
+    }
+
+    private void invalidateAround(int userId) {
+        int[] affected = getFollowers(userId);
+        synchronized (suggestions) {
+            invalidations.incrementAndGet();
+            suggestions.remove(userId);
+            for (int followerId : affected) {
+                suggestions.remove(followerId);
+            }
+        }
+    }
+
+    private static int[] emptyToNull(int[] ids) {
+        return ids.length == 0 ? null : ids;
+    }
+
+    private record Suggestions(int limit, int[] ids) {
+    }
+}
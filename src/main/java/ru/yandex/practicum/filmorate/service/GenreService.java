@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.NotFoundException;
@@ -7,23 +8,53 @@ import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 public class GenreService {
 
     private final GenreStorage genreStorage;
 
+    private volatile Film.Genre[] genresById = new Film.Genre[0];
+    private volatile List<Film.Genre> genres = List.of();
+
     @Autowired
     public GenreService(GenreStorage genreStorage) {
         this.genreStorage = genreStorage;
     }
 
+    @PostConstruct
+    public synchronized void reload() {
+        List<Film.Genre> loaded = genreStorage.getAllGenres();
+        int maxId = loaded.stream().mapToInt(Film.Genre::getId).max().orElse(0);
+
+        Film.Genre[] byId = new Film.Genre[maxId + 1];
+        for (Film.Genre genre : loaded) {
+            byId[genre.getId()] = genre;
+        }
+
+        genres = List.copyOf(loaded);
+        genresById = byId;
+    }
+
     public List<Film.Genre> getAllGenres() {
-        return genreStorage.getAllGenres();
+        return genres.stream()
+                .map(GenreService::copyOf)
+                .collect(Collectors.toList());
     }
 
     public Film.Genre getGenreById(int id) {
-        return genreStorage.getGenreById(id)
-                .orElseThrow(() -> new NotFoundException("Жанр с id " + id + " не найден"));
+        Film.Genre[] byId = genresById;
+        if (id <= 0 || id >= byId.length || byId[id] == null) {
+            throw new NotFoundException("Жанр с id " + id + " не найден");
+        }
+        return copyOf(byId[id]);
+    }
+
+    private static Film.Genre copyOf(Film.Genre genre) {
+        Film.Genre copy = new Film.Genre();
+        copy.setId(genre.getId());
+        copy.setName(genre.getName());
+        return copy;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Отложенная запись лайков. Популярность и модель рекомендаций меняются сразу при постановке в очередь,
+ * так что чтения видят свои записи без сброса; в очереди остаются только чистые изменения относительно
+ * базы — лайк и его отмена до сброса взаимно уничтожаются. Буфер сбрасывается пакетно в фоновом потоке
+ * по размеру и по таймеру, а также при остановке приложения. Если база не приняла изменение,
+ * оно откатывается в индексах.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class LikeWriteBuffer {
+
+    private final LikeStorage likeStorage;
+    private final PopularityIndex popularityIndex;
+    private final RecommendationModel recommendationModel;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private final ConcurrentHashMap<Long, Boolean> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    // сброс ходит в базу, а монитор synchronized на Java 21 закрепляет виртуальный поток за носителем
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Timer flushTimer;
+    private final Counter flushedChanges;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public LikeWriteBuffer(LikeStorage likeStorage, PopularityIndex popularityIndex,
+                           RecommendationModel recommendationModel, MeterRegistry registry,
+                           @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${filmorate.likes.write-behind.batch-size:1000}") int batchSize,
+                           @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs) {
+        this.likeStorage = likeStorage;
+        this.popularityIndex = popularityIndex;
+        this.recommendationModel = recommendationModel;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        Gauge.builder("filmorate.likes.write-behind.pending", pending, Map::size)
+                .description("Изменения лайков, ожидающие записи в базу")
+                .register(registry);
+        this.flushTimer = Timer.builder("filmorate.likes.write-behind.flush")
+                .description("Длительность сброса буфера лайков в базу")
+                .register(registry);
+        this.flushedChanges = Counter.builder("filmorate.likes.write-behind.flushed")
+                .description("Изменения лайков, записанные сбросами буфера")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-write-buffer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Отложенная запись лайков включена: пакет {}, интервал {} мс", batchSize, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void addLike(int filmId, int userId) {
+        enqueue(filmId, userId, true);
+    }
+
+    public void removeLike(int filmId, int userId) {
+        enqueue(filmId, userId, false);
+    }
+
+    /**
+     * Записывает очередь в базу. Вызывается фоновым потоком и при остановке — запросы его не ждут.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                drain();
+            } finally {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void drain() {
+
+        int capacity = pending.size();
+        int[] addFilmIds = new int[capacity];
+        int[] addUserIds = new int[capacity];
+        int[] removeFilmIds = new int[capacity];
+        int[] removeUserIds = new int[capacity];
+        int adds = 0;
+        int removes = 0;
+
+        Iterator<Long> keys = pending.keySet().iterator();
+        while (keys.hasNext() && adds + removes < capacity) {
+            long key = keys.next();
+            Boolean add = pending.remove(key);
+            if (add == null) {
+                continue;
+            }
+            if (add) {
+                addFilmIds[adds] = filmId(key);
+                addUserIds[adds++] = userId(key);
+            } else {
+                removeFilmIds[removes] = filmId(key);
+                removeUserIds[removes++] = userId(key);
+            }
+        }
+
+        apply(Arrays.copyOf(addFilmIds, adds), Arrays.copyOf(addUserIds, adds), true);
+        apply(Arrays.copyOf(removeFilmIds, removes), Arrays.copyOf(removeUserIds, removes), false);
+        flushedChanges.increment(adds + removes);
+    }
+
+    private void apply(int[] filmIds, int[] userIds, boolean add) {
+        if (filmIds.length == 0) {
+            return;
+        }
+
+        boolean[] applied;
+        try {
+            applied = add ? likeStorage.addLikes(filmIds, userIds) : likeStorage.removeLikes(filmIds, userIds);
+        } catch (RuntimeException e) {
+            // вернуть в очередь; пришедшая тем временем обратная операция с возвращённой взаимно уничтожается
+            for (int i = 0; i < filmIds.length; i++) {
+                pending.compute(key(filmIds[i], userIds[i]), (key, queued) -> queued == null ? add : null);
+            }
+            throw e;
+        }
+
+        for (int i = 0; i < filmIds.length; i++) {
+            if (!applied[i]) {
+                reject(filmIds[i], userIds[i], add);
+            }
+        }
+    }
+
+    /**
+     * База не приняла изменение. Если за ним уже стоит обратная операция, индексы совпадают с базой
+     * и обе просто отбрасываются, иначе изменение откатывается в индексах.
+     */
+    private void reject(int filmId, int userId, boolean add) {
+        log.warn("Лайк фильма {} пользователем {} не {} базой, изменение откатывается",
+                filmId, userId, add ? "записан" : "удалён");
+        pending.compute(key(filmId, userId), (key, queued) -> {
+            if (queued == null) {
+                applyToIndexes(filmId, userId, !add);
+            }
+            return null;
+        });
+    }
+
+    private void enqueue(int filmId, int userId, boolean add) {
+        pending.compute(key(filmId, userId), (key, queued) -> {
+            if (!applyToIndexes(filmId, userId, add)) {
+                return queued;
+            }
+            // индексы повторяют базу вместе с очередью, поэтому изменившая их операция
+            // либо новая, либо обратная ещё не записанной
+            return queued == null ? add : null;
+        });
+        if (pending.size() >= batchSize && scheduler != null && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private boolean applyToIndexes(int filmId, int userId, boolean add) {
+        boolean changed = add ? recommendationModel.addLike(filmId, userId)
+                : recommendationModel.removeLike(filmId, userId);
+        if (!changed) {
+            return false;
+        }
+        if (add) {
+            popularityIndex.addLike(filmId);
+        } else {
+            popularityIndex.removeLike(filmId);
+        }
+        return true;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось сбросить буфер лайков: ", e);
+        }
+    }
+
+    private static long key(int filmId, int userId) {
+        return ((long) filmId << 32) | (userId & 0xFFFFFFFFL);
+    }
+
+    private static int filmId(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int userId(long key) {
+        return (int) key;
+    }
+}
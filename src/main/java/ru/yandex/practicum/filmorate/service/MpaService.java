@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.NotFoundException;
@@ -7,23 +8,53 @@ import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.MpaStorage;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 public class MpaService {
 
     private final MpaStorage mpaStorage;
 
+    private volatile Film.Mpa[] mpaById = new Film.Mpa[0];
+    private volatile List<Film.Mpa> mpaRatings = List.of();
+
     @Autowired
     public MpaService(MpaStorage mpaStorage) {
         this.mpaStorage = mpaStorage;
     }
 
+    @PostConstruct
+    public synchronized void reload() {
+        List<Film.Mpa> loaded = mpaStorage.getAllMpa();
+        int maxId = loaded.stream().mapToInt(Film.Mpa::getId).max().orElse(0);
+
+        Film.Mpa[] byId = new Film.Mpa[maxId + 1];
+        for (Film.Mpa mpa : loaded) {
+            byId[mpa.getId()] = mpa;
+        }
+
+        mpaRatings = List.copyOf(loaded);
+        mpaById = byId;
+    }
+
     public List<Film.Mpa> getAllMpa() {
-        return mpaStorage.getAllMpa();
+        return mpaRatings.stream()
+                .map(MpaService::copyOf)
+                .collect(Collectors.toList());
     }
 
     public Film.Mpa getMpaById(int id) {
-        return mpaStorage.getMpaById(id)
-                .orElseThrow(() -> new NotFoundException("MPA рейтинг с id " + id + " не найден"));
+        Film.Mpa[] byId = mpaById;
+        if (id <= 0 || id >= byId.length || byId[id] == null) {
+            throw new NotFoundException("MPA рейтинг с id " + id + " не найден");
+        }
+        return copyOf(byId[id]);
+    }
+
+    private static Film.Mpa copyOf(Film.Mpa mpa) {
+        Film.Mpa copy = new Film.Mpa();
+        copy.setId(mpa.getId());
+        copy.setName(mpa.getName());
+        return copy;
     }
-}
\ No newline at end of file
+}
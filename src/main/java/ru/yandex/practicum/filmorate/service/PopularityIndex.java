@@ -0,0 +1,208 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.IntIntMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Рейтинг фильмов по числу лайков в памяти: общий, по жанрам и по годам выхода.
+ * Ключ упорядоченного множества — (лайки по убыванию, id по возрастанию), упакованные в long.
+ * Изменения по одному фильму сериализуются через {@link ConcurrentHashMap#compute}, а при обходе
+ * учитываются только ключи, совпадающие с текущим состоянием фильма.
+ */
+@Component
+@Profile("!reactive")
+public class PopularityIndex {
+
+    private static final NavigableSet<Long> EMPTY = Collections.emptyNavigableSet();
+
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Long> ranking = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<Integer, ConcurrentSkipListSet<Long>> rankingByGenre = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, ConcurrentSkipListSet<Long>> rankingByYear = new ConcurrentHashMap<>();
+
+    public synchronized void clear() {
+        entries.clear();
+        ranking.clear();
+        rankingByGenre.clear();
+        rankingByYear.clear();
+    }
+
+    public void addFilm(Film film, int likes) {
+        Entry created = Entry.of(film, likes);
+        entries.compute(film.getId(), (id, existing) -> relink(id, existing, created));
+    }
+
+    public void addFilm(Film film) {
+        addFilm(film, 0);
+    }
+
+    public void updateFilm(Film film) {
+        entries.compute(film.getId(), (id, existing) ->
+                relink(id, existing, Entry.of(film, existing != null ? existing.likes : 0)));
+    }
+
+    public void removeFilm(int filmId) {
+        entries.computeIfPresent(filmId, (id, existing) -> {
+            unlink(id, existing);
+            return null;
+        });
+    }
+
+    public void addLike(int filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public void removeLike(int filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    public boolean contains(int filmId) {
+        return entries.containsKey(filmId);
+    }
+
+    public int getLikes(int filmId) {
+        Entry entry = entries.get(filmId);
+        return entry != null ? entry.likes : 0;
+    }
+
+    public List<Integer> getTop(int count) {
+        return getTop(count, null, null);
+    }
+
+    public List<Integer> getTop(int count, Integer genreId, Integer year) {
+        NavigableSet<Long> source = ranking;
+        if (year != null) {
+            source = rankingOf(rankingByYear, year);
+        } else if (genreId != null) {
+            source = rankingOf(rankingByGenre, genreId);
+        }
+
+        List<Integer> filmIds = new ArrayList<>(Math.min(count, entries.size()));
+        IntIntMap seen = new IntIntMap(Math.min(count, entries.size()));
+        for (long key : source) {
+            if (filmIds.size() >= count) {
+                break;
+            }
+            int filmId = filmId(key);
+            Entry entry = entries.get(filmId);
+            // обход слабо согласован: если лайки фильма уменьшились во время обхода, он встретится
+            // ещё раз под новым ключом, уже с совпадающим числом лайков
+            if (entry != null && entry.likes == likes(key) && entry.matches(genreId, year)
+                    && seen.putIfAbsent(filmId, 0)) {
+                filmIds.add(filmId);
+            }
+        }
+        return filmIds;
+    }
+
+    private void changeLikes(int filmId, int delta) {
+        entries.computeIfPresent(filmId, (id, existing) -> {
+            int likes = Math.max(existing.likes + delta, 0);
+            if (likes == existing.likes) {
+                return existing;
+            }
+            return relink(id, existing, new Entry(likes, existing.year, existing.genreIds));
+        });
+    }
+
+    private Entry relink(int filmId, Entry existing, Entry updated) {
+        link(filmId, updated);
+        if (existing == null) {
+            return updated;
+        }
+        if (existing.likes != updated.likes) {
+            unlink(filmId, existing);
+            return updated;
+        }
+
+        long key = key(existing.likes, filmId);
+        if (existing.year != updated.year) {
+            removeKey(rankingByYear, existing.year, key);
+        }
+        for (int genreId : existing.genreIds) {
+            if (!updated.matches(genreId, null)) {
+                removeKey(rankingByGenre, genreId, key);
+            }
+        }
+        return updated;
+    }
+
+    private void link(int filmId, Entry entry) {
+        long key = key(entry.likes, filmId);
+        ranking.add(key);
+        rankingByYear.computeIfAbsent(entry.year, year -> new ConcurrentSkipListSet<>()).add(key);
+        for (int genreId : entry.genreIds) {
+            rankingByGenre.computeIfAbsent(genreId, genre -> new ConcurrentSkipListSet<>()).add(key);
+        }
+    }
+
+    private void unlink(int filmId, Entry entry) {
+        long key = key(entry.likes, filmId);
+        ranking.remove(key);
+        removeKey(rankingByYear, entry.year, key);
+        for (int genreId : entry.genreIds) {
+            removeKey(rankingByGenre, genreId, key);
+        }
+    }
+
+    private static NavigableSet<Long> rankingOf(Map<Integer, ConcurrentSkipListSet<Long>> rankings, int attribute) {
+        NavigableSet<Long> keys = rankings.get(attribute);
+        return keys != null ? keys : EMPTY;
+    }
+
+    private static void removeKey(Map<Integer, ConcurrentSkipListSet<Long>> rankings, int attribute, long key) {
+        ConcurrentSkipListSet<Long> keys = rankings.get(attribute);
+        if (keys != null) {
+            keys.remove(key);
+        }
+    }
+
+    private static long key(int likes, int filmId) {
+        return ((long) -likes << 32) | (filmId & 0xFFFFFFFFL);
+    }
+
+    private static int likes(long key) {
+        return -(int) (key >> 32);
+    }
+
+    private static int filmId(long key) {
+        return (int) key;
+    }
+
+    private record Entry(int likes, int year, int[] genreIds) {
+
+        static Entry of(Film film, int likes) {
+            int year = film.getReleaseDate() != null ? film.getReleaseDate().getYear() : 0;
+            int[] genreIds = film.getGenres() == null ? new int[0] : film.getGenres().stream()
+                    .mapToInt(Film.Genre::getId)
+                    .distinct()
+                    .toArray();
+            return new Entry(likes, year, genreIds);
+        }
+
+        boolean matches(Integer genreId, Integer year) {
+            if (year != null && this.year != year) {
+                return false;
+            }
+            if (genreId == null) {
+                return true;
+            }
+            for (int id : genreIds) {
+                if (id == genreId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.NotFoundException;
+import ru.yandex.practicum.filmorate.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.storage.ReactiveFilmStorage;
+
+/**
+ * Фильмы для реактивного API: те же правила проверки, что и в {@link FilmService}, но без индексов
+ * в памяти — популярные фильмы берутся из счётчика лайков в базе.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveFilmService {
+
+    private final ReactiveFilmStorage filmStorage;
+    private final FilmValidator validator;
+
+    @Autowired
+    public ReactiveFilmService(ReactiveFilmStorage filmStorage, FilmValidator validator) {
+        this.filmStorage = filmStorage;
+        this.validator = validator;
+    }
+
+    public Flux<Film> getAll() {
+        return filmStorage.getAll();
+    }
+
+    public Flux<Film> getPage(int afterId, int limit) {
+        return Flux.defer(() -> {
+            validator.validatePageLimit(limit);
+            return filmStorage.getPage(afterId, limit);
+        });
+    }
+
+    public Mono<Film> create(Film film) {
+        return Mono.defer(() -> {
+            validator.validate(film);
+            return filmStorage.create(film);
+        });
+    }
+
+    /**
+     * Импорт по одному фильму в порядке поступления; ошибка записи не останавливает остальные.
+     */
+    public Flux<ImportResult> importFilms(Flux<Film> films) {
+        return films.index().concatMap(indexed -> {
+            ImportResult result = new ImportResult(indexed.getT1().intValue());
+            return Mono.defer(() -> {
+                        validator.validateForImport(indexed.getT2());
+                        return filmStorage.create(indexed.getT2());
+                    })
+                    .map(created -> {
+                        result.setId(created.getId());
+                        return result;
+                    })
+                    .onErrorResume(e -> e instanceof ValidationException || e instanceof NotFoundException
+                            || e instanceof DataAccessException, e -> {
+                        result.setError(e.getMessage());
+                        return Mono.just(result);
+                    });
+        });
+    }
+
+    public Mono<Film> update(Film film) {
+        return Mono.defer(() -> {
+            validator.validate(film);
+            return filmStorage.update(film);
+        }).switchIfEmpty(Mono.error(() -> new NotFoundException("Фильм с id " + film.getId() + " не найден")));
+    }
+
+    public Mono<Film> getById(int id) {
+        return filmStorage.getById(id)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Фильм с id " + id + " не найден")));
+    }
+
+    public Mono<Void> addLike(int filmId, int userId) {
+        return filmStorage.addLike(filmId, userId).then();
+    }
+
+    public Mono<Void> removeLike(int filmId, int userId) {
+        return filmStorage.removeLike(filmId, userId).then();
+    }
+
+    public Flux<Film> getPopular(int count, Integer genreId, Integer year) {
+        return Flux.defer(() -> {
+            validator.validatePageLimit(count);
+            validator.validateGenreId(genreId);
+            return filmStorage.getPopular(count, genreId, year);
+        });
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.NotFoundException;
+import ru.yandex.practicum.filmorate.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendLink;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ReactiveUserStorage;
+
+import java.util.function.Function;
+
+/**
+ * Пользователи и дружба для реактивного API с теми же правилами проверки, что и в {@link UserService}.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveUserService {
+
+    private final ReactiveUserStorage userStorage;
+    private final UserValidator validator;
+
+    @Autowired
+    public ReactiveUserService(ReactiveUserStorage userStorage, UserValidator validator) {
+        this.userStorage = userStorage;
+        this.validator = validator;
+    }
+
+    public Flux<User> getAll() {
+        return userStorage.getAll();
+    }
+
+    public Flux<User> getPage(int afterId, int limit) {
+        return Flux.defer(() -> {
+            validator.validatePageLimit(limit);
+            return userStorage.getPage(afterId, limit);
+        });
+    }
+
+    public Mono<User> create(User user) {
+        return Mono.defer(() -> {
+            validator.validate(user);
+            return userStorage.create(user);
+        });
+    }
+
+    public Mono<User> update(User user) {
+        return Mono.defer(() -> {
+            validator.validate(user);
+            return userStorage.update(user);
+        }).switchIfEmpty(Mono.error(() -> new NotFoundException("Пользователь с id " + user.getId() + " не найден")));
+    }
+
+    public Mono<User> getById(int id) {
+        return userStorage.getById(id)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Пользователь с id " + id + " не найден")));
+    }
+
+    public Mono<ImportReport> importUsers(Flux<User> users) {
+        return importAll(users, user -> {
+            validator.validateForImport(user);
+            return userStorage.create(user).thenReturn(true);
+        });
+    }
+
+    public Mono<ImportReport> importFriends(Flux<FriendLink> links) {
+        return importAll(links, link -> {
+            validator.validateForImport(link);
+            return Mono.zip(resolve(link.getUser()), resolve(link.getFriend()))
+                    .flatMap(ids -> userStorage.addFriend(ids.getT1(), ids.getT2()));
+        });
+    }
+
+    public Mono<Void> addFriend(int userId, int friendId) {
+        return userStorage.addFriend(userId, friendId).then();
+    }
+
+    public Mono<Void> removeFriend(int userId, int friendId) {
+        return getById(userId)
+                .then(getById(friendId))
+                .then(userStorage.removeFriend(userId, friendId))
+                .then();
+    }
+
+    public Flux<User> getFriends(int userId) {
+        return getById(userId).thenMany(userStorage.getFriends(userId));
+    }
+
+    public Flux<User> getCommonFriends(int userId, int otherId) {
+        return getById(userId)
+                .then(getById(otherId))
+                .thenMany(userStorage.getCommonFriends(userId, otherId));
+    }
+
+    private Mono<Integer> resolve(String loginOrEmail) {
+        return userStorage.getIdByLoginOrEmail(loginOrEmail)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Пользователь " + loginOrEmail + " не найден")));
+    }
+
+    /**
+     * Записи импортируются по одной в порядке поступления; отчёт тот же, что у пакетного импорта
+     * в {@link UserService}. Импортёр возвращает {@code false} для записи, которая уже была в базе.
+     */
+    private <T> Mono<ImportReport> importAll(Flux<T> items, Function<T, Mono<Boolean>> importer) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            ImportReport report = new ImportReport();
+            return items.index()
+                    .concatMap(indexed -> {
+                        int index = indexed.getT1().intValue();
+                        report.setReceived(index + 1);
+                        return Mono.defer(() -> importer.apply(indexed.getT2()))
+                                .doOnSuccess(inserted -> {
+                                    if (inserted) {
+                                        report.setImported(report.getImported() + 1);
+                                    } else {
+                                        report.setSkipped(report.getSkipped() + 1);
+                                    }
+                                })
+                                .onErrorResume(e -> e instanceof ValidationException || e instanceof NotFoundException
+                                        || e instanceof DataAccessException, e -> {
+                                    UserService.reject(report, index, e instanceof DataAccessException dataError
+                                            ? "Ошибка записи: " + dataError.getMostSpecificCause().getMessage()
+                                            : e.getMessage());
+                                    return Mono.empty();
+                                });
+                    })
+                    .then(Mono.fromSupplier(() -> {
+                        UserService.finish(report, start);
+                        log.info("Импортировано записей: {} из {} за {} мс",
+                                report.getImported(), report.getReceived(), report.getDurationMs());
+                        return report;
+                    }));
+        });
+    }
+}
@@ -0,0 +1,306 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntIntMap;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Рекомендации фильмов по схожести «фильм — фильм» на основе совместных лайков.
+ * Лайки хранятся в памяти двумя разреженными матрицами из отсортированных массивов: по пользователям и по фильмам.
+ * Для каждого фильма заранее считаются {@value #NEIGHBOURS} ближайших соседей по косинусной мере
+ * в целых единицах 1/{@value #SCORE_SCALE}. Полная перестройка идёт параллельно в {@link ForkJoinPool};
+ * новый лайк помечает устаревшими строки затронутых фильмов, и фоновый поток пересчитывает их
+ * каждые {@code refresh-interval-ms}. Чтение не считает ничего само и до пересчёта видит последнюю
+ * опубликованную строку, так что время ответа не зависит от числа совместных лайков.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class RecommendationModel {
+
+    private static final int NEIGHBOURS = 50;
+    static final int SCORE_SCALE = 10_000;
+    private static final int BUILD_BATCH_SIZE = 64;
+    private static final long DEFAULT_REFRESH_INTERVAL_MS = 200;
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentHashMap<Integer, int[]> likesByUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, int[]> likesByFilm = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Neighbours> neighbours = new ConcurrentHashMap<>();
+    private final Set<Integer> stale = ConcurrentHashMap.newKeySet();
+    // обе матрицы меняются под блокировкой полосы пользователя, иначе встречные add/remove их рассогласуют
+    private final StripedLocks userLocks = new StripedLocks(LOCK_STRIPES);
+    private final long refreshIntervalMs;
+    private ScheduledExecutorService refresher;
+
+    public RecommendationModel() {
+        this(DEFAULT_REFRESH_INTERVAL_MS);
+    }
+
+    @Autowired
+    public RecommendationModel(@Value("${filmorate.recommendations.refresh-interval-ms:200}") long refreshIntervalMs) {
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (refreshIntervalMs <= 0) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recommendation-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshIntervalMs, refreshIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Полностью перестраивает модель из источника, который передаёт пары (пользователь, его лайки).
+     */
+    public synchronized void rebuild(Consumer<BiConsumer<Integer, int[]>> source) {
+        likesByUser.clear();
+        likesByFilm.clear();
+        neighbours.clear();
+        stale.clear();
+
+        source.accept((userId, filmIds) -> {
+            int[] sorted = SortedIntArrays.of(filmIds);
+            if (sorted.length > 0) {
+                likesByUser.put(userId, sorted);
+            }
+        });
+        SortedIntArrays.transpose(likesByUser, likesByFilm::put);
+
+        int[] filmIds = likesByFilm.keySet().stream().mapToInt(Integer::intValue).toArray();
+        ForkJoinPool.commonPool().invoke(new BuildTask(filmIds, 0, filmIds.length));
+    }
+
+    /**
+     * Добавляет лайк; возвращает {@code false}, если он уже был. Модель повторяет таблицу лайков,
+     * поэтому ответ совпадает с тем, изменит ли лайк базу.
+     */
+    public boolean addLike(int filmId, int userId) {
+        return userLocks.withLock(userId, () -> insertLike(filmId, userId));
+    }
+
+    /**
+     * Убирает лайк; возвращает {@code false}, если его не было.
+     */
+    public boolean removeLike(int filmId, int userId) {
+        return userLocks.withLock(userId, () -> deleteLike(filmId, userId));
+    }
+
+    private boolean insertLike(int filmId, int userId) {
+        boolean[] added = new boolean[1];
+        likesByUser.compute(userId, (id, current) -> {
+            int[] updated = SortedIntArrays.insert(current, filmId);
+            added[0] = updated != current;
+            return updated;
+        });
+        if (!added[0]) {
+            return false;
+        }
+        likesByFilm.compute(filmId, (id, current) -> SortedIntArrays.insert(current, userId));
+        markStale(filmId, userId);
+        return true;
+    }
+
+    private boolean deleteLike(int filmId, int userId) {
+        boolean[] removed = new boolean[1];
+        likesByUser.computeIfPresent(userId, (id, current) -> {
+            int[] updated = SortedIntArrays.remove(current, filmId);
+            removed[0] = updated != current;
+            return emptyToNull(updated);
+        });
+        if (!removed[0]) {
+            return false;
+        }
+        likesByFilm.computeIfPresent(filmId, (id, current) -> emptyToNull(SortedIntArrays.remove(current, userId)));
+        markStale(filmId, userId);
+        return true;
+    }
+
+    /**
+     * До {@code count} фильмов, которые пользователь ещё не лайкал, по убыванию суммарной схожести
+     * с его лайками, при равенстве — по id.
+     */
+    public int[] recommend(int userId, int count) {
+        int[] liked = likesByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+        IntIntMap scores = new IntIntMap(Math.min(liked.length * NEIGHBOURS, 1 << 16));
+        for (int filmId : liked) {
+            Neighbours similar = neighboursOf(filmId);
+            if (similar == null) {
+                continue;
+            }
+            for (int i = 0; i < similar.filmIds.length; i++) {
+                if (!SortedIntArrays.contains(liked, similar.filmIds[i])) {
+                    scores.add(similar.filmIds[i], similar.scores[i]);
+                }
+            }
+        }
+        return TopK.select(scores, count);
+    }
+
+    /**
+     * Соседи фильма по убыванию схожести. Массив общий — изменять его нельзя.
+     */
+    public int[] getSimilar(int filmId) {
+        Neighbours similar = neighboursOf(filmId);
+        return similar != null ? similar.filmIds : SortedIntArrays.EMPTY;
+    }
+
+    /**
+     * Фильмы, которые лайкнул пользователь, и пользователи, лайкнувшие фильм. Массивы общие.
+     */
+    int[] likesOf(int userId) {
+        return likesByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    int[] likersOf(int filmId) {
+        return likesByFilm.getOrDefault(filmId, SortedIntArrays.EMPTY);
+    }
+
+    /**
+     * Последняя опубликованная строка соседей фильма или {@code null}. После пересчёта строки возвращается
+     * новый объект, поэтому по ссылке можно понять, что совместные лайки изменились.
+     */
+    Neighbours neighboursOf(int filmId) {
+        return neighbours.get(filmId);
+    }
+
+    /**
+     * Пересчитывает строки, помеченные устаревшими; вызывается фоновым потоком. Синхронизирован
+     * с полной перестройкой, чтобы не опубликовать строку, посчитанную по наполовину загруженным лайкам.
+     */
+    public synchronized void refreshStale() {
+        for (Integer filmId : stale) {
+            if (stale.remove(filmId)) {
+                refresh(filmId);
+            }
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refreshStale();
+        } catch (RuntimeException e) {
+            log.error("Не удалось пересчитать соседей фильмов: ", e);
+        }
+    }
+
+    private void markStale(int filmId, int userId) {
+        stale.add(filmId);
+        for (int likedId : likesByUser.getOrDefault(userId, SortedIntArrays.EMPTY)) {
+            stale.add(likedId);
+        }
+    }
+
+    private void refresh(int filmId) {
+        Neighbours computed = computeNeighbours(filmId);
+        if (computed != null) {
+            neighbours.put(filmId, computed);
+        } else {
+            neighbours.remove(filmId);
+        }
+    }
+
+    private Neighbours computeNeighbours(int filmId) {
+        int[] likers = likesByFilm.getOrDefault(filmId, SortedIntArrays.EMPTY);
+        if (likers.length == 0) {
+            return null;
+        }
+
+        IntIntMap coLikes = new IntIntMap(likers.length * 4);
+        for (int userId : likers) {
+            for (int otherId : likesByUser.getOrDefault(userId, SortedIntArrays.EMPTY)) {
+                if (otherId != filmId) {
+                    coLikes.increment(otherId);
+                }
+            }
+        }
+
+        IntIntMap similarity = new IntIntMap(coLikes.size());
+        for (int slot = 0; slot < coLikes.capacity(); slot++) {
+            if (!coLikes.isUsed(slot)) {
+                continue;
+            }
+            int otherId = coLikes.keyAt(slot);
+            int otherLikes = Math.max(likesByFilm.getOrDefault(otherId, SortedIntArrays.EMPTY).length, 1);
+            double cosine = coLikes.valueAt(slot) / Math.sqrt((double) likers.length * otherLikes);
+            int score = (int) Math.round(Math.min(cosine, 1.0) * SCORE_SCALE);
+            if (score > 0) {
+                similarity.putIfAbsent(otherId, score);
+            }
+        }
+        if (similarity.size() == 0) {
+            return null;
+        }
+
+        int[] filmIds = TopK.select(similarity, NEIGHBOURS);
+        int[] scores = new int[filmIds.length];
+        for (int i = 0; i < filmIds.length; i++) {
+            scores[i] = similarity.get(filmIds[i], 0);
+        }
+        return new Neighbours(filmIds, scores);
+    }
+
+    private static int[] emptyToNull(int[] ids) {
+        return ids.length == 0 ? null : ids;
+    }
+
+    record Neighbours(int[] filmIds, int[] scores) {
+    }
+
+    private final class BuildTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] filmIds;
+        private final int from;
+        private final int to;
+
+        BuildTask(int[] filmIds, int from, int to) {
+            this.filmIds = filmIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BUILD_BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    refresh(filmIds[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BuildTask(filmIds, from, middle), new BuildTask(filmIds, middle, to));
+        }
+    }
+}
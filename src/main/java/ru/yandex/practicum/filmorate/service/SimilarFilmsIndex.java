@@ -0,0 +1,253 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.IntIntMap;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Похожие фильмы: для каждого фильма хранится не более {@value #NEIGHBOURS} соседей с оценками.
+ * Оценка складывается из доли общих жанров, совпадения MPA и схожести по совместным лайкам
+ * из {@link RecommendationModel}. Кандидаты — соседи по лайкам и самые популярные фильмы тех же жанров,
+ * так что пересчёт одного фильма не обходит весь каталог.
+ * Строка пересчитывается при чтении, если менялся сам фильм, его бывшие соседи или кандидаты по новым жанрам,
+ * либо у модели лайков появилась новая строка для фильма. Полная перестройка идёт параллельно, при необходимости — по таймеру.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class SimilarFilmsIndex {
+
+    private static final int NEIGHBOURS = 20;
+    private static final int GENRE_CANDIDATES = 100;
+    private static final int GENRE_WEIGHT = 4_000;
+    private static final int MPA_WEIGHT = 1_000;
+    private static final int LIKE_WEIGHT = 5_000;
+    private static final int BUILD_BATCH_SIZE = 64;
+
+    private final PopularityIndex popularityIndex;
+    private final RecommendationModel recommendationModel;
+    private final long rebuildIntervalMs;
+
+    private final ConcurrentHashMap<Integer, Attributes> attributes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Neighbours> neighbours = new ConcurrentHashMap<>();
+    private final Set<Integer> stale = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public SimilarFilmsIndex(PopularityIndex popularityIndex, RecommendationModel recommendationModel,
+                             @Value("${filmorate.similar-films.rebuild-interval-ms:0}") long rebuildIntervalMs) {
+        this.popularityIndex = popularityIndex;
+        this.recommendationModel = recommendationModel;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (rebuildIntervalMs <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "similar-films-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, rebuildIntervalMs, rebuildIntervalMs,
+                TimeUnit.MILLISECONDS);
+        log.info("Фоновая перестройка похожих фильмов включена: интервал {} мс", rebuildIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void clear() {
+        attributes.clear();
+        neighbours.clear();
+        stale.clear();
+    }
+
+    public void addFilm(Film film) {
+        attributes.put(film.getId(), Attributes.of(film));
+        stale.add(film.getId());
+    }
+
+    public void updateFilm(Film film) {
+        Attributes updated = Attributes.of(film);
+        if (updated.equals(attributes.put(film.getId(), updated))) {
+            return;
+        }
+        stale.add(film.getId());
+        Neighbours current = neighbours.get(film.getId());
+        if (current != null) {
+            for (int neighbourId : current.filmIds) {
+                stale.add(neighbourId);
+            }
+        }
+        for (int genreId : updated.genreIds) {
+            stale.addAll(popularityIndex.getTop(GENRE_CANDIDATES, genreId, null));
+        }
+    }
+
+    /**
+     * Пересчитывает соседей всех фильмов параллельно. Чтение во время перестройки видит старые строки.
+     */
+    public synchronized void rebuild() {
+        int[] filmIds = attributes.keySet().stream().mapToInt(Integer::intValue).toArray();
+        ForkJoinPool.commonPool().invoke(new BuildTask(filmIds, 0, filmIds.length));
+    }
+
+    /**
+     * До {@code count} похожих фильмов по убыванию оценки, при равенстве — по id.
+     */
+    public int[] getSimilar(int filmId, int count) {
+        Neighbours current = neighbours.get(filmId);
+        if (stale.remove(filmId) || current == null
+                || current.likeSource != recommendationModel.neighboursOf(filmId)) {
+            current = refresh(filmId);
+        }
+        return Arrays.copyOf(current.filmIds, Math.min(count, current.filmIds.length));
+    }
+
+    private Neighbours refresh(int filmId) {
+        Neighbours computed = computeNeighbours(filmId);
+        if (attributes.containsKey(filmId)) {
+            neighbours.put(filmId, computed);
+        } else {
+            neighbours.remove(filmId);
+        }
+        return computed;
+    }
+
+    private Neighbours computeNeighbours(int filmId) {
+        RecommendationModel.Neighbours coLiked = recommendationModel.neighboursOf(filmId);
+        Attributes film = attributes.get(filmId);
+        if (film == null) {
+            return new Neighbours(SortedIntArrays.EMPTY, SortedIntArrays.EMPTY, coLiked);
+        }
+
+        IntIntMap likeScores = new IntIntMap(GENRE_CANDIDATES * Math.max(film.genreIds.length, 1));
+        if (coLiked != null) {
+            for (int i = 0; i < coLiked.filmIds().length; i++) {
+                likeScores.putIfAbsent(coLiked.filmIds()[i], coLiked.scores()[i]);
+            }
+        }
+        for (int genreId : film.genreIds) {
+            for (int candidateId : popularityIndex.getTop(GENRE_CANDIDATES, genreId, null)) {
+                likeScores.putIfAbsent(candidateId, 0);
+            }
+        }
+
+        IntIntMap scores = new IntIntMap(likeScores.size());
+        for (int slot = 0; slot < likeScores.capacity(); slot++) {
+            if (!likeScores.isUsed(slot) || likeScores.keyAt(slot) == filmId) {
+                continue;
+            }
+            Attributes other = attributes.get(likeScores.keyAt(slot));
+            if (other == null) {
+                continue;
+            }
+            int score = film.score(other)
+                    + (int) ((long) likeScores.valueAt(slot) * LIKE_WEIGHT / RecommendationModel.SCORE_SCALE);
+            if (score > 0) {
+                scores.putIfAbsent(likeScores.keyAt(slot), score);
+            }
+        }
+
+        int[] filmIds = TopK.select(scores, NEIGHBOURS);
+        int[] values = new int[filmIds.length];
+        for (int i = 0; i < filmIds.length; i++) {
+            values[i] = scores.get(filmIds[i], 0);
+        }
+        return new Neighbours(filmIds, values, coLiked);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            long start = System.nanoTime();
+            rebuild();
+            log.debug("Похожие фильмы перестроены за {} мс", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            log.error("Не удалось перестроить похожие фильмы: ", e);
+        }
+    }
+
+    private record Attributes(int mpaId, int[] genreIds) {
+
+        static Attributes of(Film film) {
+            int mpaId = film.getMpa() != null ? film.getMpa().getId() : 0;
+            int[] genreIds = film.getGenres() == null ? SortedIntArrays.EMPTY : SortedIntArrays.of(
+                    film.getGenres().stream().mapToInt(Film.Genre::getId).toArray());
+            return new Attributes(mpaId, genreIds);
+        }
+
+        int score(Attributes other) {
+            int score = mpaId != 0 && mpaId == other.mpaId ? MPA_WEIGHT : 0;
+            int union = genreIds.length + other.genreIds.length;
+            if (union > 0) {
+                int shared = SortedIntArrays.intersect(genreIds, other.genreIds).length;
+                score += GENRE_WEIGHT * shared / (union - shared);
+            }
+            return score;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Attributes other && mpaId == other.mpaId && Arrays.equals(genreIds, other.genreIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mpaId + Arrays.hashCode(genreIds);
+        }
+    }
+
+    private record Neighbours(int[] filmIds, int[] scores, RecommendationModel.Neighbours likeSource) {
+    }
+
+    private final class BuildTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] filmIds;
+        private final int from;
+        private final int to;
+
+        BuildTask(int[] filmIds, int from, int to) {
+            this.filmIds = filmIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BUILD_BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    stale.remove(filmIds[i]);
+                    refresh(filmIds[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BuildTask(filmIds, from, middle), new BuildTask(filmIds, middle, to));
+        }
+    }
+}
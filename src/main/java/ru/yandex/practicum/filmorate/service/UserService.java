@@ -1,42 +1,129 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.NotFoundException;
 import ru.yandex.practicum.filmorate.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendLink;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
-import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@Profile("!reactive")
+@Slf4j
 public class UserService {
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_PATH_DEPTH = 6;
+    private static final int FRIEND_LOCK_STRIPES = 64;
+
     private final UserStorage userStorage;
+    private final FriendGraph friendGraph;
+    private final UserValidator validator;
+    // запись в хранилище и в граф — один шаг для пары, иначе встречные add/remove расходятся
+    private final StripedLocks friendLocks = new StripedLocks(FRIEND_LOCK_STRIPES);
 
     @Autowired
-    public UserService(UserStorage userStorage) {
+    public UserService(UserStorage userStorage, FriendGraph friendGraph, UserValidator validator) {
         this.userStorage = userStorage;
+        this.friendGraph = friendGraph;
+        this.validator = validator;
     }
 
     public List<User> getAll() {
         return userStorage.getAll();
     }
 
+    public List<User> getPage(int afterId, int limit) {
+        validator.validatePageLimit(limit);
+        return userStorage.getPage(afterId, limit);
+    }
+
     public User create(User user) {
-        validateUser(user);
-        if (user.getName() == null || user.getName().isBlank()) {
-            user.setName(user.getLogin());
-        }
+        validator.validate(user);
         return userStorage.create(user);
     }
 
+    public ImportReport importUsers(Iterator<User> users) {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        List<User> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        List<Integer> chunkIndexes = new ArrayList<>(IMPORT_CHUNK_SIZE);
+
+        while (users.hasNext()) {
+            int index = (int) report.getReceived();
+            report.setReceived(index + 1);
+            try {
+                User user = users.next();
+                validator.validateForImport(user);
+                chunk.add(user);
+                chunkIndexes.add(index);
+            } catch (ValidationException e) {
+                reject(report, index, e.getMessage());
+            }
+
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                importUserChunk(chunk, chunkIndexes, report);
+            }
+        }
+        importUserChunk(chunk, chunkIndexes, report);
+
+        finish(report, start);
+        log.info("Импортировано пользователей: {} из {} за {} мс ({} строк/с)",
+                report.getImported(), report.getReceived(), report.getDurationMs(), report.getRowsPerSecond());
+        return report;
+    }
+
+    public ImportReport importFriends(Iterator<FriendLink> links) {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        List<FriendLink> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        List<Integer> chunkIndexes = new ArrayList<>(IMPORT_CHUNK_SIZE);
+
+        while (links.hasNext()) {
+            int index = (int) report.getReceived();
+            report.setReceived(index + 1);
+            try {
+                FriendLink link = links.next();
+                validator.validateForImport(link);
+                chunk.add(link);
+                chunkIndexes.add(index);
+            } catch (ValidationException e) {
+                reject(report, index, e.getMessage());
+            }
+
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                importFriendChunk(chunk, chunkIndexes, report);
+            }
+        }
+        importFriendChunk(chunk, chunkIndexes, report);
+
+        finish(report, start);
+        log.info("Импортировано связей дружбы: {} из {} за {} мс ({} строк/с)",
+                report.getImported(), report.getReceived(), report.getDurationMs(), report.getRowsPerSecond());
+        return report;
+    }
+
     public User update(User user) {
-        validateUser(user);
+        validator.validate(user);
         getById(user.getId());
-        if (user.getName() == null || user.getName().isBlank()) {
-            user.setName(user.getLogin());
-        }
         return userStorage.update(user);
     }
 
@@ -46,31 +133,182 @@ public class UserService {
     }
 
     public void addFriend(int userId, int friendId) {
-        getById(userId);
-        getById(friendId);
-        userStorage.addFriend(userId, friendId);
+        friendLocks.withLocks(userId, friendId, () -> {
+            userStorage.addFriend(userId, friendId);
+            friendGraph.addFriend(userId, friendId);
+            return null;
+        });
     }
 
     public void removeFriend(int userId, int friendId) {
         getById(userId);
         getById(friendId);
-        userStorage.removeFriend(userId, friendId);
+        friendLocks.withLocks(userId, friendId, () -> {
+            userStorage.removeFriend(userId, friendId);
+            friendGraph.removeFriend(userId, friendId);
+            return null;
+        });
     }
 
     public List<User> getFriends(int userId) {
-        getById(userId);
-        return userStorage.getFriends(userId);
+        List<User> users = hydrate(List.of(userId), friendGraph.getFriends(userId));
+        return users.subList(1, users.size());
     }
 
     public List<User> getCommonFriends(int userId, int otherId) {
-        getById(userId);
-        getById(otherId);
-        return userStorage.getCommonFriends(userId, otherId);
+        List<User> users = hydrate(List.of(userId, otherId), friendGraph.getCommonFriends(userId, otherId));
+        return users.subList(2, users.size());
+    }
+
+    public List<User> getFriendSuggestions(int userId, int limit) {
+        validator.validatePageLimit(limit);
+        List<User> users = hydrate(List.of(userId), friendGraph.getSuggestions(userId, limit));
+        return users.subList(1, users.size());
+    }
+
+    public List<User> getPath(int userId, int otherId) {
+        int[] path = friendGraph.findPath(userId, otherId, MAX_PATH_DEPTH);
+        List<User> users = hydrate(List.of(userId, otherId), path != null ? path : new int[0]);
+        if (path == null) {
+            throw new NotFoundException("Пользователи " + userId + " и " + otherId +
+                    " не связаны цепочкой друзей длиной до " + MAX_PATH_DEPTH);
+        }
+        return users.subList(2, users.size());
+    }
+
+    @PostConstruct
+    public void rebuildFriendGraph() {
+        friendGraph.rebuild(userStorage::exportFriends);
     }
 
-    private void validateUser(User user) {
-        if (user.getBirthday() != null && user.getBirthday().isAfter(LocalDate.now())) {
-            throw new ValidationException("Дата рождения не может быть в будущем");
+    private void importUserChunk(List<User> chunk, List<Integer> chunkIndexes, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
         }
+
+        List<String> keys = new ArrayList<>(chunk.size() * 2);
+        for (User user : chunk) {
+            keys.add(user.getLogin());
+            keys.add(user.getEmail());
+        }
+        Map<String, Integer> existing = userStorage.getIdsByLoginOrEmail(keys);
+
+        Set<String> logins = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<User> fresh = new ArrayList<>(chunk.size());
+        List<Integer> freshIndexes = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            User user = chunk.get(i);
+            if (existing.containsKey(user.getLogin()) || logins.contains(user.getLogin())) {
+                reject(report, chunkIndexes.get(i), "Логин " + user.getLogin() + " уже занят");
+            } else if (existing.containsKey(user.getEmail()) || emails.contains(user.getEmail())) {
+                reject(report, chunkIndexes.get(i), "Email " + user.getEmail() + " уже занят");
+            } else {
+                logins.add(user.getLogin());
+                emails.add(user.getEmail());
+                fresh.add(user);
+                freshIndexes.add(chunkIndexes.get(i));
+            }
+        }
+
+        try {
+            userStorage.createAll(fresh);
+            report.setImported(report.getImported() + fresh.size());
+        } catch (DataAccessException e) {
+            log.warn("Не удалось импортировать пакет из {} пользователей: {}", fresh.size(), e.getMessage());
+            for (int index : freshIndexes) {
+                reject(report, index, "Ошибка записи пакета: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    private void importFriendChunk(List<FriendLink> chunk, List<Integer> chunkIndexes, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(chunk.size() * 2);
+        for (FriendLink link : chunk) {
+            keys.add(link.getUser());
+            keys.add(link.getFriend());
+        }
+        Map<String, Integer> ids = userStorage.getIdsByLoginOrEmail(keys);
+
+        int[] userIds = new int[chunk.size()];
+        int[] friendIds = new int[chunk.size()];
+        int[] indexes = new int[chunk.size()];
+        int resolved = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            FriendLink link = chunk.get(i);
+            Integer userId = ids.get(link.getUser());
+            Integer friendId = ids.get(link.getFriend());
+            if (userId == null) {
+                reject(report, chunkIndexes.get(i), "Пользователь " + link.getUser() + " не найден");
+            } else if (friendId == null) {
+                reject(report, chunkIndexes.get(i), "Пользователь " + link.getFriend() + " не найден");
+            } else {
+                userIds[resolved] = userId;
+                friendIds[resolved] = friendId;
+                indexes[resolved++] = chunkIndexes.get(i);
+            }
+        }
+
+        try {
+            int inserted = userStorage.addFriends(Arrays.copyOf(userIds, resolved), Arrays.copyOf(friendIds, resolved));
+            for (int i = 0; i < resolved; i++) {
+                friendGraph.addFriend(userIds[i], friendIds[i]);
+            }
+            // уже существующие и повторённые в пакете связи не вставляются
+            report.setImported(report.getImported() + inserted);
+            report.setSkipped(report.getSkipped() + resolved - inserted);
+        } catch (DataAccessException e) {
+            log.warn("Не удалось импортировать пакет из {} связей дружбы: {}", resolved, e.getMessage());
+            for (int i = 0; i < resolved; i++) {
+                reject(report, indexes[i], "Ошибка записи пакета: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    /**
+     * Загружает пользователей одним запросом: сначала {@code required} в том же порядке, затем друзей.
+     * Если кого-то из {@code required} нет, бросает {@link NotFoundException}.
+     */
+    private List<User> hydrate(List<Integer> required, int[] friendIds) {
+        List<Integer> ids = new ArrayList<>(required.size() + friendIds.length);
+        ids.addAll(required);
+        for (int friendId : friendIds) {
+            ids.add(friendId);
+        }
+
+        List<User> users = userStorage.getByIds(ids);
+        for (int i = 0; i < required.size(); i++) {
+            int id = required.get(i);
+            if (users.size() <= i || users.get(i).getId() != id) {
+                throw new NotFoundException("Пользователь с id " + id + " не найден");
+            }
+        }
+        return users;
+    }
+
+    static void reject(ImportReport report, int index, String error) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            ImportResult result = new ImportResult(index);
+            result.setError(error);
+            report.getErrors().add(result);
+        }
+    }
+
+    static void finish(ImportReport report, long start) {
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        report.setDurationMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        report.setRowsPerSecond(report.getReceived() * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        report.getErrors().sort(Comparator.comparingInt(ImportResult::getIndex));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendLink;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+/**
+ * Правила проверки пользователей, общие для сервлетного и реактивного API.
+ */
+@Component
+public class UserValidator {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Проверка пользователя перед созданием или обновлением; пустое имя заменяется логином.
+     */
+    public void validate(User user) {
+        if (user.getBirthday() != null && user.getBirthday().isAfter(LocalDate.now())) {
+            throw new ValidationException("Дата рождения не может быть в будущем");
+        }
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+        }
+    }
+
+    /**
+     * Проверка записи из пакетного импорта, где тело не проходит через {@code @Valid}.
+     */
+    public void validateForImport(User user) {
+        if (isBlank(user.getEmail()) || !user.getEmail().contains("@")) {
+            throw new ValidationException("Email должен содержать символ @");
+        }
+        if (isBlank(user.getLogin()) || !user.getLogin().matches("\\S+")) {
+            throw new ValidationException("Логин не может быть пустым и содержать пробелы");
+        }
+        validate(user);
+    }
+
+    public void validateForImport(FriendLink link) {
+        if (isBlank(link.getUser()) || isBlank(link.getFriend())) {
+            throw new ValidationException("Нужно указать логин или email пользователя и друга");
+        }
+    }
+
+    public void validatePageLimit(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Собирает строки связей, отсортированные по ключевому столбцу, в массив значений на каждый ключ.
+ * После обхода нужно вызвать {@link #flush()}, чтобы отдать последнюю группу.
+ */
+class AdjacencyCollector implements RowCallbackHandler {
+    private final String keyColumn;
+    private final String valueColumn;
+    private final BiConsumer<Integer, int[]> consumer;
+    private int[] values = new int[16];
+    private int size;
+    private int key;
+
+    AdjacencyCollector(String keyColumn, String valueColumn, BiConsumer<Integer, int[]> consumer) {
+        this.keyColumn = keyColumn;
+        this.valueColumn = valueColumn;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        int rowKey = rs.getInt(keyColumn);
+        if (size > 0 && rowKey != key) {
+            flush();
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        key = rowKey;
+        values[size++] = rs.getInt(valueColumn);
+    }
+
+    void flush() {
+        if (size > 0) {
+            consumer.accept(key, Arrays.copyOf(values, size));
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Repository
+@Profile("!reactive")
+@Primary
+public class CachedFilmStorage implements FilmStorage {
+
+    private final FilmStorage delegate;
+    private final int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LinkedHashMap<Integer, Film> cache;
+
+    @Autowired
+    public CachedFilmStorage(@Qualifier("filmDbStorage") FilmStorage delegate,
+                             @Value("${filmorate.film-cache.max-size:10000}") int maxSize,
+                             MeterRegistry registry) {
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Film> eldest) {
+                if (size() > CachedFilmStorage.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+                .tags("cache", "films", "result", "hit")
+                .description("Попадания в кэш фильмов")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+                .tags("cache", "films", "result", "miss")
+                .description("Промахи кэша фильмов")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+                .tags("cache", "films")
+                .description("Вытеснения из кэша фильмов по размеру")
+                .register(registry);
+        Gauge.builder("cache.size", this, CachedFilmStorage::size)
+                .tags("cache", "films")
+                .description("Число фильмов в кэше")
+                .register(registry);
+    }
+
+    @Override
+    public List<Film> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        return delegate.getPage(afterId, limit);
+    }
+
+    @Override
+    public void exportAll(Consumer<Film> consumer) {
+        delegate.exportAll(consumer);
+    }
+
+    @Override
+    public Film create(Film film) {
+        return delegate.create(film);
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        return delegate.createAll(films);
+    }
+
+    @Override
+    public Film update(Film film) {
+        try {
+            return delegate.update(film);
+        } finally {
+            invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public Optional<Film> getById(int id) {
+        Film cached = lookup(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long version = invalidations.get();
+        Optional<Film> loaded = delegate.getById(id);
+        loaded.ifPresent(film -> store(film, version));
+        return loaded.map(CachedFilmStorage::copyOf);
+    }
+
+    @Override
+    public List<Film> getByIds(List<Integer> ids) {
+        Map<Integer, Film> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int id : ids) {
+            Film cached = lookup(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long version = invalidations.get();
+            for (Film film : delegate.getByIds(missing)) {
+                store(film, version);
+                found.put(film.getId(), copyOf(film));
+            }
+        }
+
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void delete(int id) {
+        try {
+            delegate.delete(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        return delegate.getPopular(count);
+    }
+
+    public void invalidate(int id) {
+        synchronized (cache) {
+            invalidations.incrementAndGet();
+            cache.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (cache) {
+            invalidations.incrementAndGet();
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private Film lookup(int id) {
+        Film cached;
+        synchronized (cache) {
+            cached = cache.get(id);
+        }
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copyOf(cached);
+    }
+
+    private void store(Film film, long version) {
+        Film copy = copyOf(film);
+        synchronized (cache) {
+            if (invalidations.get() == version) {
+                cache.put(copy.getId(), copy);
+            }
+        }
+    }
+
+    private static Film copyOf(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+
+        if (film.getMpa() != null) {
+            Film.Mpa mpa = new Film.Mpa();
+            mpa.setId(film.getMpa().getId());
+            mpa.setName(film.getMpa().getName());
+            copy.setMpa(mpa);
+        }
+
+        List<Film.Genre> genres = new ArrayList<>(film.getGenres().size());
+        for (Film.Genre genre : film.getGenres()) {
+            Film.Genre genreCopy = new Film.Genre();
+            genreCopy.setId(genre.getId());
+            genreCopy.setName(genre.getName());
+            genres.add(genreCopy);
+        }
+        copy.setGenres(genres);
+        copy.setLikes(new HashSet<>(film.getLikes()));
+
+        return copy;
+    }
+}
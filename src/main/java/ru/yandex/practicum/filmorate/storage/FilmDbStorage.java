@@ -2,26 +2,33 @@ package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.sql.*;
 import java.sql.Date;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
-@Primary
+@Profile("!reactive")
 @Qualifier("filmDbStorage")
 public class FilmDbStorage implements FilmStorage {
 
+    private static final int IN_BATCH_SIZE = 500;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final String INSERT_FILM_SQL =
+            "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+
     private final JdbcTemplate jdbcTemplate;
 
     @Autowired
@@ -61,27 +68,73 @@ public class FilmDbStorage implements FilmStorage {
                 "ORDER BY f.id";
 
         List<Film> films = jdbcTemplate.query(sql, filmRowMapper);
+        loadGenresForFilms(films);
 
-        for (Film film : films) {
-            film.setGenres(getGenresForFilm(film.getId()));
-        }
+        return films;
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
+                "f.mpa_id, m.name as mpa_name " +
+                "FROM films f " +
+                "LEFT JOIN mpa_ratings m ON f.mpa_id = m.id " +
+                "WHERE f.id > ? " +
+                "ORDER BY f.id " +
+                "LIMIT ?";
+
+        List<Film> films = jdbcTemplate.query(sql, filmRowMapper, afterId, limit);
+        loadGenresForFilms(films);
 
         return films;
     }
 
     @Override
-    public Film create(Film film) {
-        String sql = "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+    public void exportAll(Consumer<Film> consumer) {
+        String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
+                "f.mpa_id, m.name as mpa_name, g.id as genre_id, g.name as genre_name " +
+                "FROM films f " +
+                "LEFT JOIN mpa_ratings m ON f.mpa_id = m.id " +
+                "LEFT JOIN film_genres fg ON f.id = fg.film_id " +
+                "LEFT JOIN genres g ON fg.genre_id = g.id " +
+                "ORDER BY f.id, g.id";
+
+        Film[] current = new Film[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement stmt = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(EXPORT_FETCH_SIZE);
+            return stmt;
+        }, rs -> {
+            int filmId = rs.getInt("id");
+            if (current[0] == null || current[0].getId() != filmId) {
+                if (current[0] != null) {
+                    consumer.accept(current[0]);
+                }
+                current[0] = filmRowMapper.mapRow(rs, rs.getRow());
+            }
+
+            int genreId = rs.getInt("genre_id");
+            if (!rs.wasNull()) {
+                Film.Genre genre = new Film.Genre();
+                genre.setId(genreId);
+                genre.setName(rs.getString("genre_name"));
+                current[0].getGenres().add(genre);
+            }
+        });
 
+        if (current[0] != null) {
+            consumer.accept(current[0]);
+        }
+    }
+
+    @Override
+    public Film create(Film film) {
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         jdbcTemplate.update(connection -> {
-            PreparedStatement stmt = connection.prepareStatement(sql, new String[]{"id"});
-            stmt.setString(1, film.getName());
-            stmt.setString(2, film.getDescription());
-            stmt.setDate(3, film.getReleaseDate() != null ? Date.valueOf(film.getReleaseDate()) : null);
-            stmt.setInt(4, film.getDuration());
-            stmt.setInt(5, film.getMpa().getId());
+            PreparedStatement stmt = connection.prepareStatement(INSERT_FILM_SQL, new String[]{"id"});
+            setFilmValues(stmt, film);
             return stmt;
         }, keyHolder);
 
@@ -93,6 +146,37 @@ public class FilmDbStorage implements FilmStorage {
         return film;
     }
 
+    @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_FILM_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setFilmValues(ps, films.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+        }
+
+        saveGenresForFilms(films);
+
+        return films;
+    }
+
     @Override
     public Film update(Film film) {
         String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? WHERE id = ?";
@@ -131,25 +215,43 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
+    @Override
+    public List<Film> getByIds(List<Integer> ids) {
+        Map<Integer, Film> filmsById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_BATCH_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + IN_BATCH_SIZE, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
+                    "f.mpa_id, m.name as mpa_name " +
+                    "FROM films f " +
+                    "LEFT JOIN mpa_ratings m ON f.mpa_id = m.id " +
+                    "WHERE f.id IN (" + placeholders + ")";
+
+            for (Film film : jdbcTemplate.query(sql, filmRowMapper, chunk.toArray())) {
+                filmsById.put(film.getId(), film);
+            }
+        }
+
+        List<Film> films = ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        loadGenresForFilms(films);
+
+        return films;
+    }
+
     @Override
     public List<Film> getPopular(int count) {
         String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
-                "f.mpa_id, m.name as mpa_name, " +
-                "COALESCE(l.like_count, 0) as like_count " +
+                "f.mpa_id, m.name as mpa_name " +
                 "FROM films f " +
                 "LEFT JOIN mpa_ratings m ON f.mpa_id = m.id " +
-                "LEFT JOIN (" +
-                "    SELECT film_id, COUNT(user_id) as like_count " +
-                "    FROM likes " +
-                "    GROUP BY film_id" +
-                ") l ON f.id = l.film_id " +
-                "ORDER BY like_count DESC, f.id " +
+                "ORDER BY f.like_count DESC, f.id " +
                 "LIMIT ?";
 
         List<Film> films = jdbcTemplate.query(sql, filmRowMapper, count);
-        for (Film film : films) {
-            film.setGenres(getGenresForFilm(film.getId()));
-        }
+        loadGenresForFilms(films);
 
         return films;
     }
@@ -167,34 +269,79 @@ public class FilmDbStorage implements FilmStorage {
         }, filmId);
     }
 
+    private void loadGenresForFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+
+        List<Integer> ids = new ArrayList<>(filmsById.keySet());
+        for (int from = 0; from < ids.size(); from += IN_BATCH_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + IN_BATCH_SIZE, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT fg.film_id, g.id, g.name FROM film_genres fg " +
+                    "JOIN genres g ON g.id = fg.genre_id " +
+                    "WHERE fg.film_id IN (" + placeholders + ") ORDER BY fg.film_id, g.id";
+
+            jdbcTemplate.query(sql, rs -> {
+                Film.Genre genre = new Film.Genre();
+                genre.setId(rs.getInt("id"));
+                genre.setName(rs.getString("name"));
+                filmsById.get(rs.getInt("film_id")).getGenres().add(genre);
+            }, chunk.toArray());
+        }
+    }
+
+    private void setFilmValues(PreparedStatement stmt, Film film) throws SQLException {
+        stmt.setString(1, film.getName());
+        stmt.setString(2, film.getDescription());
+        stmt.setDate(3, film.getReleaseDate() != null ? Date.valueOf(film.getReleaseDate()) : null);
+        stmt.setInt(4, film.getDuration());
+        stmt.setInt(5, film.getMpa().getId());
+    }
+
     private void saveGenresForFilm(int filmId, List<Film.Genre> genres) {
         if (genres == null || genres.isEmpty()) {
             return;
         }
 
-        Set<Film.Genre> uniqueGenres = genres.stream()
-                .collect(Collectors.toMap(
-                        Film.Genre::getId,
-                        genre -> genre,
-                        (existing, replacement) -> existing
-                ))
-                .values()
-                .stream()
-                .collect(Collectors.toSet());
+        Film film = new Film();
+        film.setId(filmId);
+        film.setGenres(genres);
+        saveGenresForFilms(List.of(film));
+    }
+
+    private void saveGenresForFilms(List<Film> films) {
+        List<int[]> rows = new ArrayList<>();
+        for (Film film : films) {
+            if (film.getGenres() == null) {
+                continue;
+            }
+            film.getGenres().stream()
+                    .mapToInt(Film.Genre::getId)
+                    .distinct()
+                    .forEach(genreId -> rows.add(new int[]{film.getId(), genreId}));
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
 
         String sql = "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)";
 
         jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
             @Override
             public void setValues(PreparedStatement ps, int i) throws SQLException {
-                Film.Genre genre = new ArrayList<>(uniqueGenres).get(i);
-                ps.setInt(1, filmId);
-                ps.setInt(2, genre.getId());
+                ps.setInt(1, rows.get(i)[0]);
+                ps.setInt(2, rows.get(i)[1]);
             }
 
             @Override
             public int getBatchSize() {
-                return uniqueGenres.size();
+                return rows.size();
             }
         });
     }
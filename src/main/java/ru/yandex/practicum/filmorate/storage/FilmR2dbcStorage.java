@@ -0,0 +1,232 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Хранилище фильмов поверх R2DBC. Фильм с MPA и жанрами читается одним запросом с LEFT JOIN:
+ * строки одного фильма идут подряд и склеиваются в поток без сбора всей выборки в память.
+ */
+@Repository
+@Profile("reactive")
+public class FilmR2dbcStorage implements ReactiveFilmStorage {
+
+    private static final String FILM_COLUMNS = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
+            "f.mpa_id, m.name AS mpa_name, g.id AS genre_id, g.name AS genre_name FROM ";
+    private static final String FILM_JOINS = " f " +
+            "LEFT JOIN mpa_ratings m ON f.mpa_id = m.id " +
+            "LEFT JOIN film_genres fg ON f.id = fg.film_id " +
+            "LEFT JOIN genres g ON fg.genre_id = g.id ";
+    private static final String MERGE_LIKE_SQL = "MERGE INTO likes l USING (VALUES (:filmId, :userId)) s(film_id, user_id) " +
+            "ON l.film_id = s.film_id AND l.user_id = s.user_id " +
+            "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (s.film_id, s.user_id)";
+
+    private final DatabaseClient client;
+    private final TransactionalOperator transactions;
+
+    @Autowired
+    public FilmR2dbcStorage(DatabaseClient client, TransactionalOperator transactions) {
+        this.client = client;
+        this.transactions = transactions;
+    }
+
+    @Override
+    public Flux<Film> getAll() {
+        return queryFilms(client.sql(FILM_COLUMNS + "films" + FILM_JOINS + "ORDER BY f.id, g.id"));
+    }
+
+    @Override
+    public Flux<Film> getPage(int afterId, int limit) {
+        return queryFilms(client.sql(FILM_COLUMNS +
+                        "(SELECT * FROM films WHERE id > :afterId ORDER BY id LIMIT :limit)" + FILM_JOINS +
+                        "ORDER BY f.id, g.id")
+                .bind("afterId", afterId)
+                .bind("limit", limit));
+    }
+
+    @Override
+    public Mono<Film> create(Film film) {
+        DatabaseClient.GenericExecuteSpec insert = client.sql("INSERT INTO films " +
+                        "(name, description, release_date, duration, mpa_id) " +
+                        "VALUES (:name, :description, :releaseDate, :duration, :mpaId)")
+                .filter(statement -> statement.returnGeneratedValues("id"));
+        return bindFilm(insert, film)
+                .map(row -> row.get("id", Integer.class))
+                .one()
+                .flatMap(id -> saveGenres(id, film.getGenres()).then(getById(id)))
+                .as(transactions::transactional);
+    }
+
+    @Override
+    public Mono<Film> update(Film film) {
+        DatabaseClient.GenericExecuteSpec update = client.sql("UPDATE films SET name = :name, " +
+                        "description = :description, release_date = :releaseDate, duration = :duration, " +
+                        "mpa_id = :mpaId WHERE id = :id")
+                .bind("id", film.getId());
+        return bindFilm(update, film)
+                .fetch()
+                .rowsUpdated()
+                .filter(updated -> updated > 0)
+                .flatMap(updated -> client.sql("DELETE FROM film_genres WHERE film_id = :id")
+                        .bind("id", film.getId())
+                        .then()
+                        .then(saveGenres(film.getId(), film.getGenres()))
+                        .then(getById(film.getId())))
+                .as(transactions::transactional);
+    }
+
+    @Override
+    public Mono<Film> getById(int id) {
+        return queryFilms(client.sql(FILM_COLUMNS + "films" + FILM_JOINS + "WHERE f.id = :id ORDER BY g.id")
+                .bind("id", id))
+                .next();
+    }
+
+    @Override
+    public Flux<Film> getPopular(int count, Integer genreId, Integer year) {
+        StringBuilder where = new StringBuilder("WHERE 1 = 1");
+        if (genreId != null) {
+            where.append(" AND EXISTS (SELECT 1 FROM film_genres x WHERE x.film_id = films.id AND x.genre_id = :genreId)");
+        }
+        if (year != null) {
+            where.append(" AND EXTRACT(YEAR FROM release_date) = :year");
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = client.sql(FILM_COLUMNS +
+                        "(SELECT * FROM films " + where + " ORDER BY like_count DESC, id LIMIT :count)" + FILM_JOINS +
+                        "ORDER BY f.like_count DESC, f.id, g.id")
+                .bind("count", count);
+        if (genreId != null) {
+            spec = spec.bind("genreId", genreId);
+        }
+        if (year != null) {
+            spec = spec.bind("year", year);
+        }
+        return queryFilms(spec);
+    }
+
+    @Override
+    public Mono<Boolean> addLike(int filmId, int userId) {
+        return client.sql(MERGE_LIKE_SQL)
+                .bind("filmId", filmId)
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(inserted -> inserted == 0 ? Mono.just(false) : changeLikeCount(filmId, 1))
+                .onErrorMap(DataIntegrityViolationException.class, e -> {
+                    String message = String.valueOf(e.getMessage()).toUpperCase();
+                    if (message.contains("FK_LIKES_FILM")) {
+                        return new NotFoundException("Фильм с id " + filmId + " не найден");
+                    }
+                    if (message.contains("FK_LIKES_USER")) {
+                        return new NotFoundException("Пользователь с id " + userId + " не найден");
+                    }
+                    return e;
+                })
+                .as(transactions::transactional);
+    }
+
+    @Override
+    public Mono<Boolean> removeLike(int filmId, int userId) {
+        return client.sql("DELETE FROM likes WHERE film_id = :filmId AND user_id = :userId")
+                .bind("filmId", filmId)
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(deleted -> deleted == 0 ? Mono.just(false) : changeLikeCount(filmId, -1))
+                .as(transactions::transactional);
+    }
+
+    private Mono<Boolean> changeLikeCount(int filmId, int delta) {
+        return client.sql("UPDATE films SET like_count = like_count + :delta WHERE id = :id")
+                .bind("delta", delta)
+                .bind("id", filmId)
+                .then()
+                .thenReturn(true);
+    }
+
+    private Mono<Void> saveGenres(int filmId, List<Film.Genre> genres) {
+        if (genres == null || genres.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromStream(genres.stream().mapToInt(Film.Genre::getId).distinct().boxed())
+                .concatMap(genreId -> client.sql("INSERT INTO film_genres (film_id, genre_id) VALUES (:filmId, :genreId)")
+                        .bind("filmId", filmId)
+                        .bind("genreId", genreId)
+                        .then())
+                .then();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindFilm(DatabaseClient.GenericExecuteSpec spec, Film film) {
+        spec = spec.bind("name", film.getName())
+                .bind("duration", film.getDuration())
+                .bind("mpaId", film.getMpa().getId());
+        spec = film.getDescription() != null
+                ? spec.bind("description", film.getDescription())
+                : spec.bindNull("description", String.class);
+        return film.getReleaseDate() != null
+                ? spec.bind("releaseDate", film.getReleaseDate())
+                : spec.bindNull("releaseDate", LocalDate.class);
+    }
+
+    private static Flux<Film> queryFilms(DatabaseClient.GenericExecuteSpec spec) {
+        return spec.map(FilmR2dbcStorage::mapRow)
+                .all()
+                .bufferUntilChanged(row -> row.film().getId())
+                .map(FilmR2dbcStorage::merge);
+    }
+
+    private static Film merge(List<FilmRow> rows) {
+        Film film = rows.get(0).film();
+        List<Film.Genre> genres = new ArrayList<>(rows.size());
+        for (FilmRow row : rows) {
+            if (row.genre() != null) {
+                genres.add(row.genre());
+            }
+        }
+        film.setGenres(genres);
+        return film;
+    }
+
+    private static FilmRow mapRow(Readable row) {
+        Film film = new Film();
+        film.setId(row.get("id", Integer.class));
+        film.setName(row.get("name", String.class));
+        film.setDescription(row.get("description", String.class));
+        film.setReleaseDate(row.get("release_date", LocalDate.class));
+        film.setDuration(row.get("duration", Integer.class));
+
+        Integer mpaId = row.get("mpa_id", Integer.class);
+        if (mpaId != null) {
+            Film.Mpa mpa = new Film.Mpa();
+            mpa.setId(mpaId);
+            mpa.setName(row.get("mpa_name", String.class));
+            film.setMpa(mpa);
+        }
+
+        Film.Genre genre = null;
+        Integer genreId = row.get("genre_id", Integer.class);
+        if (genreId != null) {
+            genre = new Film.Genre();
+            genre.setId(genreId);
+            genre.setName(row.get("genre_name", String.class));
+        }
+        return new FilmRow(film, genre);
+    }
+
+    private record FilmRow(Film film, Film.Genre genre) {
+    }
+}
@@ -3,16 +3,25 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.Film;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     List<Film> getAll();
 
+    List<Film> getPage(int afterId, int limit);
+
+    void exportAll(Consumer<Film> consumer);
+
     Film create(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     Film update(Film film);
 
     Optional<Film> getById(int id);
 
+    List<Film> getByIds(List<Integer> ids);
+
     void delete(int id);
 
     List<Film> getPopular(int count);
@@ -1,19 +1,32 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 @Repository
+@Profile("!reactive")
 public class FriendDbStorage implements FriendStorage {
 
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final String MERGE_FRIEND_SQL =
+            "MERGE INTO friends f USING (VALUES (?, ?)) s(user_id, friend_id) " +
+            "ON f.user_id = s.user_id AND f.friend_id = s.friend_id " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, friend_id, confirmed) VALUES (s.user_id, s.friend_id, false)";
+
     private final JdbcTemplate jdbcTemplate;
 
     private final RowMapper<User> userRowMapper = (rs, rowNum) -> {
@@ -35,14 +48,44 @@ public class FriendDbStorage implements FriendStorage {
 
     @Override
     public void addFriend(int userId, int friendId) {
-        String checkSql = "SELECT COUNT(*) FROM friends WHERE user_id = ? AND friend_id = ?";
-        Integer count = jdbcTemplate.queryForObject(checkSql, Integer.class, userId, friendId);
+        try {
+            jdbcTemplate.update(MERGE_FRIEND_SQL, userId, friendId);
+        } catch (DataIntegrityViolationException e) {
+            String message = String.valueOf(e.getMessage()).toUpperCase();
+            if (message.contains("FK_FRIENDS_USER")) {
+                throw new NotFoundException("Пользователь с id " + userId + " не найден");
+            }
+            if (message.contains("FK_FRIENDS_FRIEND")) {
+                throw new NotFoundException("Пользователь с id " + friendId + " не найден");
+            }
+            throw e;
+        }
+    }
 
-        if (count == null || count == 0) {
-            String sql = "INSERT INTO friends (user_id, friend_id, confirmed) VALUES (?, ?, false)";
-            jdbcTemplate.update(sql, userId, friendId);
+    @Override
+    public int addFriends(int[] userIds, int[] friendIds) {
+        if (userIds.length == 0) {
+            return 0;
         }
 
+        int[] counts = jdbcTemplate.batchUpdate(MERGE_FRIEND_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, userIds[i]);
+                ps.setInt(2, friendIds[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return userIds.length;
+            }
+        });
+
+        int inserted = 0;
+        for (int count : counts) {
+            inserted += Math.max(count, 0);
+        }
+        return inserted;
     }
 
     @Override
@@ -70,6 +113,20 @@ public class FriendDbStorage implements FriendStorage {
         return jdbcTemplate.query(sql, userRowMapper, userId, otherId);
     }
 
+    @Override
+    public void exportAll(BiConsumer<Integer, int[]> consumer) {
+        String sql = "SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id";
+
+        AdjacencyCollector collector = new AdjacencyCollector("user_id", "friend_id", consumer);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement stmt = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(EXPORT_FETCH_SIZE);
+            return stmt;
+        }, collector);
+        collector.flush();
+    }
+
     @Override
     public void saveAllFriends(int userId, List<Integer> friendIds) {
         if (friendIds == null || friendIds.isEmpty()) {
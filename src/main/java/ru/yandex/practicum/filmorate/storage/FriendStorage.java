@@ -2,17 +2,22 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.User;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public interface FriendStorage {
 
     void addFriend(int userId, int friendId);
 
+    int addFriends(int[] userIds, int[] friendIds);
+
     void removeFriend(int userId, int friendId);
 
     List<User> getFriends(int userId);
 
     List<User> getCommonFriends(int userId, int otherId);
 
+    void exportAll(BiConsumer<Integer, int[]> consumer);
+
     void saveAllFriends(int userId, List<Integer> friendIds);
 
     void updateFriends(int userId, List<Integer> friendIds);
@@ -1,55 +1,176 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.NotFoundException;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Потокобезопасное хранилище фильмов в памяти. Изменения одного фильма атомарны за счёт операций
+ * {@link ConcurrentSkipListMap}, id выдаются счётчиком. Полная выборка — согласованный снимок:
+ * записи идут параллельно под общей блокировкой чтения, а снимок берёт исключительную и видит
+ * состояние между записями. Наружу отдаются копии, чтобы вызывающий код не менял хранимое.
+ * Лайки хранятся рядом с фильмом отсортированным массивом int; отдаваемая копия видит их через
+ * {@link SortedIntArrays#asSet} без упаковки, пока вызывающий код не начнёт менять набор.
+ */
 @Component
+@Profile("!reactive")
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Integer, Film> films = new HashMap<>();
-    private int nextId = 1;
+    private final ConcurrentSkipListMap<Integer, Stored> films = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
 
     @Override
     public List<Film> getAll() {
-        return new ArrayList<>(films.values());
+        return snapshot();
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        return films.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(Stored::toFilm)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void exportAll(Consumer<Film> consumer) {
+        snapshot().forEach(consumer);
     }
 
     @Override
     public Film create(Film film) {
-        film.setId(nextId++);
-        films.put(film.getId(), film);
-        return film;
+        return write(() -> {
+            film.setId(nextId.getAndIncrement());
+            films.put(film.getId(), Stored.of(film));
+            return film;
+        });
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        films.forEach(this::create);
+        return films;
     }
 
     @Override
     public Film update(Film film) {
-        if (!films.containsKey(film.getId())) {
-            throw new NotFoundException("Фильм с id " + film.getId() + " не найден");
-        }
-        films.put(film.getId(), film);
-        return film;
+        return write(() -> {
+            // лайки меняются отдельно от фильма, как в PopularityIndex.updateFilm — хранимые переносятся
+            Stored updated = films.computeIfPresent(film.getId(),
+                    (id, existing) -> new Stored(copyOf(film), existing.likes()));
+            if (updated == null) {
+                throw new NotFoundException("Фильм с id " + film.getId() + " не найден");
+            }
+            return film;
+        });
     }
 
     @Override
     public Optional<Film> getById(int id) {
-        return Optional.ofNullable(films.get(id));
+        return Optional.ofNullable(films.get(id)).map(Stored::toFilm);
+    }
+
+    @Override
+    public List<Film> getByIds(List<Integer> ids) {
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(Stored::toFilm)
+                .collect(Collectors.toList());
     }
 
     @Override
     public void delete(int id) {
-        if (!films.containsKey(id)) {
-            throw new NotFoundException("Фильм с id " + id + " не найден");
-        }
-        films.remove(id);
+        write(() -> {
+            if (films.remove(id) == null) {
+                throw new NotFoundException("Фильм с id " + id + " не найден");
+            }
+            return null;
+        });
     }
 
     @Override
     public List<Film> getPopular(int count) {
         return films.values().stream()
-                .sorted((f1, f2) -> Integer.compare(f2.getLikes().size(), f1.getLikes().size()))
+                .sorted((f1, f2) -> Integer.compare(f2.likes.length, f1.likes.length))
                 .limit(count)
+                .map(Stored::toFilm)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    private <T> T write(Supplier<T> action) {
+        snapshotLock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    private List<Film> snapshot() {
+        List<Stored> stored;
+        snapshotLock.writeLock().lock();
+        try {
+            stored = new ArrayList<>(films.values());
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        return stored.stream()
+                .map(Stored::toFilm)
+                .collect(Collectors.toList());
+    }
+
+    private static Film copyOf(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        if (film.getMpa() != null) {
+            Film.Mpa mpa = new Film.Mpa();
+            mpa.setId(film.getMpa().getId());
+            mpa.setName(film.getMpa().getName());
+            copy.setMpa(mpa);
+        }
+        List<Film.Genre> genres = new ArrayList<>();
+        if (film.getGenres() != null) {
+            for (Film.Genre genre : film.getGenres()) {
+                Film.Genre genreCopy = new Film.Genre();
+                genreCopy.setId(genre.getId());
+                genreCopy.setName(genre.getName());
+                genres.add(genreCopy);
+            }
+        }
+        copy.setGenres(genres);
+        copy.setLikes(null);
+        return copy;
+    }
+
+    /**
+     * Хранимый фильм: копия без лайков и сами лайки в отсортированном массиве id пользователей.
+     */
+    private record Stored(Film film, int[] likes) {
+
+        static Stored of(Film film) {
+            int[] likes = film.getLikes() == null ? SortedIntArrays.EMPTY
+                    : SortedIntArrays.of(film.getLikes().stream().mapToInt(Integer::intValue).toArray());
+            return new Stored(copyOf(film), likes);
+        }
+
+        Film toFilm() {
+            Film copy = copyOf(film);
+            copy.setLikes(SortedIntArrays.asSet(likes));
+            return copy;
+        }
+    }
+}
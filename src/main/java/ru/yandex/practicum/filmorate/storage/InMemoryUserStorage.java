@@ -1,19 +1,63 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.NotFoundException;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Потокобезопасное хранилище пользователей и дружбы в памяти. Пользователь, его логин и email
+ * меняются под блокировкой его полосы, дружба — под блокировками полос обоих пользователей,
+ * так что обе стороны связи и проверка существования видны атомарно. Логин и email занимаются
+ * через {@code putIfAbsent}, и при конфликте уже занятое откатывается — как UNIQUE в базе. Полные выборки — согласованные
+ * снимки, как в {@link InMemoryFilmStorage}. Друзья хранятся отсортированными массивами int
+ * ({@link SortedIntArrays}): запись заменяет массив целиком под блокировкой полосы, а чтение
+ * берёт текущий массив без блокировок.
+ */
 @Component
+@Profile("!reactive")
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Integer, User> users = new HashMap<>();
-    private int nextId = 1;
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentSkipListMap<Integer, User> users = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Integer> idsByLogin = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> idsByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, int[]> friends = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
 
     @Override
     public List<User> getAll() {
-        return new ArrayList<>(users.values());
+        List<User> stored;
+        snapshotLock.writeLock().lock();
+        try {
+            stored = new ArrayList<>(users.values());
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        return stored.stream()
+                .map(InMemoryUserStorage::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        return users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(InMemoryUserStorage::copyOf)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -21,91 +65,246 @@ public class InMemoryUserStorage implements UserStorage {
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
         }
-        user.setId(nextId++);
-        users.put(user.getId(), user);
-        return user;
+        int id = nextId.getAndIncrement();
+        user.setId(id);
+        User stored = copyOf(user);
+        return write(() -> locks.withLock(id, () -> {
+            index(stored, null);
+            users.put(id, stored);
+            return user;
+        }));
+    }
+
+    @Override
+    public List<User> createAll(List<User> users) {
+        users.forEach(this::create);
+        return users;
     }
 
     @Override
     public User update(User user) {
-        if (!users.containsKey(user.getId())) {
-            throw new NotFoundException("Пользователь с id " + user.getId() + " не найден");
-        }
-        users.put(user.getId(), user);
-        return user;
+        User stored = copyOf(user);
+        return write(() -> locks.withLock(user.getId(), () -> {
+            User previous = users.get(user.getId());
+            if (previous == null) {
+                throw new NotFoundException("Пользователь с id " + user.getId() + " не найден");
+            }
+            index(stored, previous);
+            users.put(user.getId(), stored);
+            return user;
+        }));
     }
 
     @Override
     public Optional<User> getById(int id) {
-        return Optional.ofNullable(users.get(id));
+        return Optional.ofNullable(users.get(id)).map(InMemoryUserStorage::copyOf);
     }
 
     @Override
-    public void delete(int id) {
-        if (!users.containsKey(id)) {
-            throw new NotFoundException("Пользователь с id " + id + " не найден");
+    public List<User> getByIds(List<Integer> ids) {
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(InMemoryUserStorage::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, Integer> getIdsByLoginOrEmail(Collection<String> keys) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (String key : keys) {
+            Integer id = idsByLogin.get(key);
+            if (id == null) {
+                id = idsByEmail.get(key);
+            }
+            if (id != null) {
+                ids.put(key, id);
+            }
         }
-        users.remove(id);
+        return ids;
     }
 
-    private final Map<Integer, Set<Integer>> friends = new HashMap<>();
+    @Override
+    public void delete(int id) {
+        write(() -> {
+            locks.withLock(id, () -> {
+                User removed = users.remove(id);
+                if (removed == null) {
+                    throw new NotFoundException("Пользователь с id " + id + " не найден");
+                }
+                unindex(removed);
+                return null;
+            });
+            for (int friendId : friendIds(id)) {
+                locks.withLocks(id, friendId, () -> unlink(id, friendId));
+            }
+            return locks.withLock(id, () -> friends.remove(id));
+        });
+    }
 
     @Override
     public void addFriend(int userId, int friendId) {
-        User user = getById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id " + userId + " не найден"));
-        User friend = getById(friendId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id " + friendId + " не найден"));
+        write(() -> locks.withLocks(userId, friendId, () -> link(userId, friendId)));
+    }
 
-        friends.computeIfAbsent(userId, k -> new HashSet<>()).add(friendId);
-        friends.computeIfAbsent(friendId, k -> new HashSet<>()).add(userId);
+    @Override
+    public int addFriends(int[] userIds, int[] friendIds) {
+        return write(() -> {
+            int added = 0;
+            for (int i = 0; i < userIds.length; i++) {
+                int userId = userIds[i];
+                int friendId = friendIds[i];
+                if (locks.withLocks(userId, friendId, () -> link(userId, friendId))) {
+                    added++;
+                }
+            }
+            return added;
+        });
     }
 
     @Override
     public void removeFriend(int userId, int friendId) {
-        User user = getById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id " + userId + " не найден"));
-        User friend = getById(friendId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id " + friendId + " не найден"));
-
-        if (friends.containsKey(userId)) {
-            friends.get(userId).remove(friendId);
-        }
-        if (friends.containsKey(friendId)) {
-            friends.get(friendId).remove(userId);
-        }
+        write(() -> locks.withLocks(userId, friendId, () -> {
+            requireExists(userId);
+            requireExists(friendId);
+            return unlink(userId, friendId);
+        }));
     }
 
     @Override
     public List<User> getFriends(int userId) {
-        User user = getById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id " + userId + " не найден"));
-
-        Set<Integer> userFriends = friends.getOrDefault(userId, Collections.emptySet());
-        return userFriends.stream()
-                .map(this::getById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+        requireExists(userId);
+        return getByIds(toList(friendIds(userId)));
     }
 
     @Override
     public List<User> getCommonFriends(int userId, int otherId) {
-        User user = getById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id " + userId + " не найден"));
-        User otherUser = getById(otherId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id " + otherId + " не найден"));
+        requireExists(userId);
+        requireExists(otherId);
 
-        Set<Integer> userFriends = friends.getOrDefault(userId, Collections.emptySet());
-        Set<Integer> otherFriends = friends.getOrDefault(otherId, Collections.emptySet());
+        return getByIds(toList(SortedIntArrays.intersect(friendIds(userId), friendIds(otherId))));
+    }
 
-        Set<Integer> commonFriendIds = new HashSet<>(userFriends);
-        commonFriendIds.retainAll(otherFriends);
+    @Override
+    public void exportFriends(BiConsumer<Integer, int[]> consumer) {
+        Map<Integer, int[]> snapshot = new TreeMap<>();
+        snapshotLock.writeLock().lock();
+        try {
+            snapshot.putAll(friends);
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        snapshot.forEach(consumer);
+    }
 
-        return commonFriendIds.stream()
-                .map(this::getById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+    /**
+     * Связывает пользователей в обе стороны; вызывается под блокировками полос обоих.
+     */
+    private boolean link(int userId, int friendId) {
+        requireExists(userId);
+        requireExists(friendId);
+        if (SortedIntArrays.contains(friendIds(userId), friendId)) {
+            return false;
+        }
+        friends.compute(userId, (id, current) -> SortedIntArrays.insert(current, friendId));
+        friends.compute(friendId, (id, current) -> SortedIntArrays.insert(current, userId));
+        return true;
+    }
+
+    private boolean unlink(int userId, int friendId) {
+        if (!SortedIntArrays.contains(friendIds(userId), friendId)) {
+            return false;
+        }
+        friends.computeIfPresent(userId, (id, current) -> emptyToNull(SortedIntArrays.remove(current, friendId)));
+        friends.computeIfPresent(friendId, (id, current) -> emptyToNull(SortedIntArrays.remove(current, userId)));
+        return true;
+    }
+
+    private int[] friendIds(int userId) {
+        return friends.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    private static int[] emptyToNull(int[] ids) {
+        return ids.length == 0 ? null : ids;
+    }
+
+    private static List<Integer> toList(int[] ids) {
+        List<Integer> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private void requireExists(int userId) {
+        if (!users.containsKey(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        }
+    }
+
+    /**
+     * Занимает логин и email пользователя и освобождает прежние. Если одно из значений занято другим
+     * пользователем, уже занятое этим вызовом освобождается, а запись не меняется.
+     */
+    private void index(User user, User previous) {
+        int id = user.getId();
+        boolean loginClaimed = claim(idsByLogin, user.getLogin(), id, "Логин");
+        try {
+            claim(idsByEmail, user.getEmail(), id, "Email");
+        } catch (DuplicateKeyException e) {
+            if (loginClaimed) {
+                idsByLogin.remove(user.getLogin(), id);
+            }
+            throw e;
+        }
+        if (previous != null) {
+            release(idsByLogin, previous.getLogin(), user.getLogin(), id);
+            release(idsByEmail, previous.getEmail(), user.getEmail(), id);
+        }
+    }
+
+    private static boolean claim(Map<String, Integer> ids, String key, int id, String name) {
+        if (key == null) {
+            return false;
+        }
+        Integer owner = ids.putIfAbsent(key, id);
+        if (owner != null && owner != id) {
+            throw new DuplicateKeyException(name + " " + key + " уже занят");
+        }
+        return owner == null;
+    }
+
+    private static void release(Map<String, Integer> ids, String previous, String current, int id) {
+        if (previous != null && !previous.equals(current)) {
+            ids.remove(previous, id);
+        }
+    }
+
+    private void unindex(User user) {
+        if (user.getLogin() != null) {
+            idsByLogin.remove(user.getLogin(), user.getId());
+        }
+        if (user.getEmail() != null) {
+            idsByEmail.remove(user.getEmail(), user.getId());
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        snapshotLock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        return copy;
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,36 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.NotFoundException;
 
+import java.sql.BatchUpdateException;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 @Repository
+@Profile("!reactive")
+@Slf4j
 public class LikeDbStorage implements LikeStorage {
 
+    private static final String MERGE_LIKE_SQL = "MERGE INTO likes l USING (VALUES (?, ?)) s(film_id, user_id) " +
+            "ON l.film_id = s.film_id AND l.user_id = s.user_id " +
+            "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (s.film_id, s.user_id)";
+    private static final String DELETE_LIKE_SQL = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
 
     @Autowired
@@ -20,20 +39,53 @@ public class LikeDbStorage implements LikeStorage {
     }
 
     @Override
-    public void addLike(int filmId, int userId) {
-        String checkSql = "SELECT COUNT(*) FROM likes WHERE film_id = ? AND user_id = ?";
-        Integer count = jdbcTemplate.queryForObject(checkSql, Integer.class, filmId, userId);
+    @Transactional
+    public boolean addLike(int filmId, int userId) {
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(MERGE_LIKE_SQL, filmId, userId);
+        } catch (DataIntegrityViolationException e) {
+            String message = String.valueOf(e.getMessage()).toUpperCase();
+            if (message.contains("FK_LIKES_FILM")) {
+                throw new NotFoundException("Фильм с id " + filmId + " не найден");
+            }
+            if (message.contains("FK_LIKES_USER")) {
+                throw new NotFoundException("Пользователь с id " + userId + " не найден");
+            }
+            throw e;
+        }
+
+        if (inserted == 0) {
+            return false;
+        }
+        changeLikeCount(filmId, 1);
+        return true;
+    }
 
-        if (count == null || count == 0) {
-            String sql = "INSERT INTO likes (film_id, user_id) VALUES (?, ?)";
-            jdbcTemplate.update(sql, filmId, userId);
+    @Override
+    @Transactional
+    public boolean removeLike(int filmId, int userId) {
+        if (jdbcTemplate.update(DELETE_LIKE_SQL, filmId, userId) == 0) {
+            return false;
         }
+        changeLikeCount(filmId, -1);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean[] addLikes(int[] filmIds, int[] userIds) {
+        boolean[] added = executeLikeBatch(MERGE_LIKE_SQL, filmIds, userIds);
+        changeLikeCounts(filmIds, added, 1);
+        return added;
     }
 
     @Override
-    public void removeLike(int filmId, int userId) {
-        String sql = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+    @Transactional
+    public boolean[] removeLikes(int[] filmIds, int[] userIds) {
+        boolean[] removed = executeLikeBatch(DELETE_LIKE_SQL, filmIds, userIds);
+        changeLikeCounts(filmIds, removed, -1);
+        return removed;
     }
 
     @Override
@@ -44,6 +96,7 @@ public class LikeDbStorage implements LikeStorage {
     }
 
     @Override
+    @Transactional
     public void saveAllLikes(int filmId, List<Integer> userIds) {
         if (userIds == null || userIds.isEmpty()) {
             return;
@@ -63,12 +116,15 @@ public class LikeDbStorage implements LikeStorage {
                 return userIds.size();
             }
         });
+        recountLikes(filmId);
     }
 
     @Override
+    @Transactional
     public void updateLikes(int filmId, List<Integer> userIds) {
         String deleteSql = "DELETE FROM likes WHERE film_id = ?";
         jdbcTemplate.update(deleteSql, filmId);
+        jdbcTemplate.update("UPDATE films SET like_count = 0 WHERE id = ?", filmId);
 
         saveAllLikes(filmId, userIds);
     }
@@ -86,4 +142,108 @@ public class LikeDbStorage implements LikeStorage {
         Integer count = jdbcTemplate.queryForObject(sql, Integer.class, filmId, userId);
         return count != null && count > 0;
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional
+    public int rebuildLikeCounts() {
+        String sql = "UPDATE films f SET like_count = " +
+                "(SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id) " +
+                "WHERE like_count <> (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id)";
+        return jdbcTemplate.update(sql);
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikeCounts() {
+        String sql = "SELECT f.id, COUNT(l.user_id) as like_count FROM films f " +
+                "LEFT JOIN likes l ON f.id = l.film_id " +
+                "GROUP BY f.id";
+
+        Map<Integer, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getInt("id"), rs.getInt("like_count"));
+        });
+        return counts;
+    }
+
+    @Override
+    public void exportByUser(BiConsumer<Integer, int[]> consumer) {
+        String sql = "SELECT user_id, film_id FROM likes ORDER BY user_id, film_id";
+
+        AdjacencyCollector collector = new AdjacencyCollector("user_id", "film_id", consumer);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement stmt = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(EXPORT_FETCH_SIZE);
+            return stmt;
+        }, collector);
+        collector.flush();
+    }
+
+    private boolean[] executeLikeBatch(String sql, int[] filmIds, int[] userIds) {
+        int[] counts;
+        try {
+            counts = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setInt(1, filmIds[i]);
+                    ps.setInt(2, userIds[i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return filmIds.length;
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (!(e.getCause() instanceof BatchUpdateException batchException)
+                    || batchException.getUpdateCounts().length != filmIds.length) {
+                throw e;
+            }
+            log.warn("Часть лайков не записана из-за нарушения целостности: {}", e.getMessage());
+            counts = batchException.getUpdateCounts();
+        }
+
+        boolean[] applied = new boolean[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            applied[i] = counts[i] > 0;
+        }
+        return applied;
+    }
+
+    private void changeLikeCounts(int[] filmIds, boolean[] applied, int delta) {
+        Map<Integer, Integer> deltas = new HashMap<>();
+        for (int i = 0; i < filmIds.length; i++) {
+            if (applied[i]) {
+                deltas.merge(filmIds[i], delta, Integer::sum);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<Integer, Integer>> changes = new ArrayList<>(deltas.entrySet());
+        String sql = "UPDATE films SET like_count = like_count + ? WHERE id = ?";
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, changes.get(i).getValue());
+                ps.setInt(2, changes.get(i).getKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return changes.size();
+            }
+        });
+    }
+
+    private void changeLikeCount(int filmId, int delta) {
+        String sql = "UPDATE films SET like_count = like_count + ? WHERE id = ?";
+        jdbcTemplate.update(sql, delta, filmId);
+    }
+
+    private void recountLikes(int filmId) {
+        String sql = "UPDATE films SET like_count = (SELECT COUNT(*) FROM likes WHERE film_id = ?) WHERE id = ?";
+        jdbcTemplate.update(sql, filmId, filmId);
+    }
+}
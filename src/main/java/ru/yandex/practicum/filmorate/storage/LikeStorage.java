@@ -1,11 +1,17 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 public interface LikeStorage {
-    void addLike(int filmId, int userId);
+    boolean addLike(int filmId, int userId);
 
-    void removeLike(int filmId, int userId);
+    boolean removeLike(int filmId, int userId);
+
+    boolean[] addLikes(int[] filmIds, int[] userIds);
+
+    boolean[] removeLikes(int[] filmIds, int[] userIds);
 
     List<Integer> getLikes(int filmId);
 
@@ -16,4 +22,10 @@ public interface LikeStorage {
     int getLikesCount(int filmId);
 
     boolean existsLike(int filmId, int userId);
+
+    int rebuildLikeCounts();
+
+    Map<Integer, Integer> getLikeCounts();
+
+    void exportByUser(BiConsumer<Integer, int[]> consumer);
 }
\ No newline at end of file
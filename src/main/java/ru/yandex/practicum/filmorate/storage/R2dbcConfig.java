@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Неблокирующий доступ к той же базе H2, что и у JDBC: адрес берётся из {@code spring.datasource.url},
+ * а H2 внутри одного процесса делит базу между JDBC и R2DBC. Пул соединений и менеджер транзакций
+ * намеренно не публикуются бинами: фабрика соединений R2DBC в контексте отключает автоконфигурацию
+ * {@code DataSource}, а второй менеджер транзакций сделал бы {@code @Transactional} неоднозначным.
+ */
+@Configuration
+@Profile("reactive")
+public class R2dbcConfig {
+
+    private static final String JDBC_H2_PREFIX = "jdbc:h2:";
+
+    private final ConnectionPool pool;
+
+    public R2dbcConfig(@Value("${spring.datasource.url}") String url,
+                       @Value("${spring.datasource.username:sa}") String username,
+                       @Value("${spring.datasource.password:}") String password,
+                       @Value("${filmorate.r2dbc.pool-size:10}") int poolSize) {
+        if (!url.startsWith(JDBC_H2_PREFIX)) {
+            throw new IllegalStateException("Реактивный профиль поддерживает только H2, а указан " + url);
+        }
+        H2ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(url.substring(JDBC_H2_PREFIX.length()))
+                .username(username)
+                .password(password)
+                .build());
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        return DatabaseClient.create(pool);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactions() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(pool));
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.dispose();
+    }
+}
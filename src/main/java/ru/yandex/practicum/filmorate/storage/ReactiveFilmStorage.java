@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+
+public interface ReactiveFilmStorage {
+    Flux<Film> getAll();
+
+    Flux<Film> getPage(int afterId, int limit);
+
+    Mono<Film> create(Film film);
+
+    Mono<Film> update(Film film);
+
+    Mono<Film> getById(int id);
+
+    Flux<Film> getPopular(int count, Integer genreId, Integer year);
+
+    Mono<Boolean> addLike(int filmId, int userId);
+
+    Mono<Boolean> removeLike(int filmId, int userId);
+
+}
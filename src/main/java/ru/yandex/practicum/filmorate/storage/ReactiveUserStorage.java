@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.User;
+
+public interface ReactiveUserStorage {
+    Flux<User> getAll();
+
+    Flux<User> getPage(int afterId, int limit);
+
+    Mono<User> create(User user);
+
+    Mono<User> update(User user);
+
+    Mono<User> getById(int id);
+
+    Mono<Integer> getIdByLoginOrEmail(String key);
+
+    Mono<Boolean> addFriend(int userId, int friendId);
+
+    Mono<Boolean> removeFriend(int userId, int friendId);
+
+    Flux<User> getFriends(int userId);
+
+    Flux<User> getCommonFriends(int userId, int otherId);
+
+}
@@ -3,30 +3,49 @@ package ru.yandex.practicum.filmorate.storage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.NotFoundException;
 import ru.yandex.practicum.filmorate.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 @Repository
+@Profile("!reactive")
 @Primary
 @Qualifier("userDbStorage")
 public class UserDbStorage implements UserStorage {
 
+    private static final int IN_BATCH_SIZE = 500;
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
+
     private final JdbcTemplate jdbcTemplate;
+    private final FriendStorage friendStorage;
 
     @Autowired
     public UserDbStorage(JdbcTemplate jdbcTemplate, FriendStorage friendStorage) {
         this.jdbcTemplate = jdbcTemplate;
+        this.friendStorage = friendStorage;
     }
 
     private final RowMapper<User> userRowMapper = (rs, rowNum) -> {
@@ -50,28 +69,23 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(sql, userRowMapper);
     }
 
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        return jdbcTemplate.query(sql, userRowMapper, afterId, limit);
+    }
+
     @Override
     public User create(User user) {
         if (user.getLogin().contains(" ")) {
             throw new ValidationException("Логин не может содержать пробелы");
         }
 
-        String sql = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
-
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         jdbcTemplate.update(connection -> {
-            PreparedStatement stmt = connection.prepareStatement(sql, new String[]{"id"});
-            stmt.setString(1, user.getEmail());
-            stmt.setString(2, user.getLogin());
-            stmt.setString(3, user.getName());
-
-            if (user.getBirthday() != null) {
-                stmt.setDate(4, Date.valueOf(user.getBirthday()));
-            } else {
-                stmt.setNull(4, Types.DATE);
-            }
-
+            PreparedStatement stmt = connection.prepareStatement(INSERT_USER_SQL, new String[]{"id"});
+            setUserValues(stmt, user);
             return stmt;
         }, keyHolder);
 
@@ -80,6 +94,35 @@ public class UserDbStorage implements UserStorage {
         return user;
     }
 
+    @Override
+    @Transactional
+    public List<User> createAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_USER_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setUserValues(ps, users.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+        }
+
+        return users;
+    }
+
     @Override
     public User update(User user) {
         String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?";
@@ -110,39 +153,99 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    public List<User> getByIds(List<Integer> ids) {
+        Map<Integer, User> usersById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_BATCH_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + IN_BATCH_SIZE, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT * FROM users WHERE id IN (" + placeholders + ")";
+
+            for (User user : jdbcTemplate.query(sql, userRowMapper, chunk.toArray())) {
+                usersById.put(user.getId(), user);
+            }
+        }
+
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, Integer> getIdsByLoginOrEmail(Collection<String> keys) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> distinctKeys = new ArrayList<>(new HashSet<>(keys));
+        for (int from = 0; from < distinctKeys.size(); from += IN_BATCH_SIZE) {
+            List<String> chunk = distinctKeys.subList(from, Math.min(from + IN_BATCH_SIZE, distinctKeys.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT id, login, email FROM users " +
+                    "WHERE login IN (" + placeholders + ") OR email IN (" + placeholders + ")";
+
+            Object[] params = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                params[i] = chunk.get(i);
+                params[chunk.size() + i] = chunk.get(i);
+            }
+
+            jdbcTemplate.query(sql, rs -> {
+                ids.put(rs.getString("login"), rs.getInt("id"));
+                ids.put(rs.getString("email"), rs.getInt("id"));
+            }, params);
+        }
+        ids.keySet().retainAll(keys);
+        return ids;
+    }
+
+    @Override
+    @Transactional
     public void delete(int id) {
+        String likesSql = "UPDATE films SET like_count = like_count - 1 " +
+                "WHERE id IN (SELECT film_id FROM likes WHERE user_id = ?)";
+        jdbcTemplate.update(likesSql, id);
+
         String sql = "DELETE FROM users WHERE id = ?";
         jdbcTemplate.update(sql, id);
     }
 
     @Override
     public void addFriend(int userId, int friendId) {
-        String sql = "INSERT INTO friends (user_id, friend_id, confirmed) VALUES (?, ?, false)";
-        jdbcTemplate.update(sql, userId, friendId);
+        friendStorage.addFriend(userId, friendId);
+    }
+
+    @Override
+    public int addFriends(int[] userIds, int[] friendIds) {
+        return friendStorage.addFriends(userIds, friendIds);
     }
 
     @Override
     public void removeFriend(int userId, int friendId) {
-        String sql = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
-        jdbcTemplate.update(sql, userId, friendId);
+        friendStorage.removeFriend(userId, friendId);
     }
 
     @Override
     public List<User> getFriends(int userId) {
-        String sql = "SELECT u.* FROM users u " +
-                "JOIN friends f ON u.id = f.friend_id " +
-                "WHERE f.user_id = ? " +
-                "ORDER BY u.id";
-        return jdbcTemplate.query(sql, userRowMapper, userId);
+        return friendStorage.getFriends(userId);
     }
 
     @Override
     public List<User> getCommonFriends(int userId, int otherId) {
-        String sql = "SELECT u.* FROM users u " +
-                "JOIN friends f1 ON u.id = f1.friend_id " +
-                "JOIN friends f2 ON u.id = f2.friend_id " +
-                "WHERE f1.user_id = ? AND f2.user_id = ? " +
-                "ORDER BY u.id";
-        return jdbcTemplate.query(sql, userRowMapper, userId, otherId);
+        return friendStorage.getCommonFriends(userId, otherId);
+    }
+
+    @Override
+    public void exportFriends(BiConsumer<Integer, int[]> consumer) {
+        friendStorage.exportAll(consumer);
+    }
+
+    private static void setUserValues(PreparedStatement ps, User user) throws SQLException {
+        ps.setString(1, user.getEmail());
+        ps.setString(2, user.getLogin());
+        ps.setString(3, user.getName());
+
+        if (user.getBirthday() != null) {
+            ps.setDate(4, Date.valueOf(user.getBirthday()));
+        } else {
+            ps.setNull(4, Types.DATE);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+@Repository
+@Profile("reactive")
+public class UserR2dbcStorage implements ReactiveUserStorage {
+
+    private static final String MERGE_FRIEND_SQL =
+            "MERGE INTO friends f USING (VALUES (:userId, :friendId)) s(user_id, friend_id) " +
+            "ON f.user_id = s.user_id AND f.friend_id = s.friend_id " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, friend_id, confirmed) VALUES (s.user_id, s.friend_id, false)";
+
+    private final DatabaseClient client;
+
+    @Autowired
+    public UserR2dbcStorage(DatabaseClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Flux<User> getAll() {
+        return client.sql("SELECT * FROM users ORDER BY id")
+                .map(UserR2dbcStorage::mapUser)
+                .all();
+    }
+
+    @Override
+    public Flux<User> getPage(int afterId, int limit) {
+        return client.sql("SELECT * FROM users WHERE id > :afterId ORDER BY id LIMIT :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(UserR2dbcStorage::mapUser)
+                .all();
+    }
+
+    @Override
+    public Mono<User> create(User user) {
+        DatabaseClient.GenericExecuteSpec insert = client.sql("INSERT INTO users (email, login, name, birthday) " +
+                        "VALUES (:email, :login, :name, :birthday)")
+                .filter(statement -> statement.returnGeneratedValues("id"));
+        return bindUser(insert, user)
+                .map(row -> row.get("id", Integer.class))
+                .one()
+                .map(id -> {
+                    user.setId(id);
+                    return user;
+                });
+    }
+
+    @Override
+    public Mono<User> update(User user) {
+        DatabaseClient.GenericExecuteSpec update = client.sql("UPDATE users SET email = :email, login = :login, " +
+                        "name = :name, birthday = :birthday WHERE id = :id")
+                .bind("id", user.getId());
+        return bindUser(update, user)
+                .fetch()
+                .rowsUpdated()
+                .filter(updated -> updated > 0)
+                .map(updated -> user);
+    }
+
+    @Override
+    public Mono<User> getById(int id) {
+        return client.sql("SELECT * FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(UserR2dbcStorage::mapUser)
+                .one();
+    }
+
+    @Override
+    public Mono<Integer> getIdByLoginOrEmail(String key) {
+        return client.sql("SELECT id FROM users WHERE login = :key OR email = :key LIMIT 1")
+                .bind("key", key)
+                .map(row -> row.get("id", Integer.class))
+                .one();
+    }
+
+    @Override
+    public Mono<Boolean> addFriend(int userId, int friendId) {
+        return client.sql(MERGE_FRIEND_SQL)
+                .bind("userId", userId)
+                .bind("friendId", friendId)
+                .fetch()
+                .rowsUpdated()
+                .map(inserted -> inserted > 0)
+                .onErrorMap(DataIntegrityViolationException.class, e -> {
+                    String message = String.valueOf(e.getMessage()).toUpperCase();
+                    if (message.contains("FK_FRIENDS_USER")) {
+                        return new NotFoundException("Пользователь с id " + userId + " не найден");
+                    }
+                    if (message.contains("FK_FRIENDS_FRIEND")) {
+                        return new NotFoundException("Пользователь с id " + friendId + " не найден");
+                    }
+                    return e;
+                });
+    }
+
+    @Override
+    public Mono<Boolean> removeFriend(int userId, int friendId) {
+        return client.sql("DELETE FROM friends WHERE user_id = :userId AND friend_id = :friendId")
+                .bind("userId", userId)
+                .bind("friendId", friendId)
+                .fetch()
+                .rowsUpdated()
+                .map(deleted -> deleted > 0);
+    }
+
+    @Override
+    public Flux<User> getFriends(int userId) {
+        return client.sql("SELECT u.* FROM users u " +
+                        "JOIN friends f ON u.id = f.friend_id " +
+                        "WHERE f.user_id = :userId " +
+                        "ORDER BY u.id")
+                .bind("userId", userId)
+                .map(UserR2dbcStorage::mapUser)
+                .all();
+    }
+
+    @Override
+    public Flux<User> getCommonFriends(int userId, int otherId) {
+        return client.sql("SELECT u.* FROM users u " +
+                        "JOIN friends f1 ON u.id = f1.friend_id " +
+                        "JOIN friends f2 ON u.id = f2.friend_id " +
+                        "WHERE f1.user_id = :userId AND f2.user_id = :otherId " +
+                        "ORDER BY u.id")
+                .bind("userId", userId)
+                .bind("otherId", otherId)
+                .map(UserR2dbcStorage::mapUser)
+                .all();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindUser(DatabaseClient.GenericExecuteSpec spec, User user) {
+        spec = spec.bind("email", user.getEmail())
+                .bind("login", user.getLogin())
+                .bind("name", user.getName());
+        return user.getBirthday() != null
+                ? spec.bind("birthday", user.getBirthday())
+                : spec.bindNull("birthday", LocalDate.class);
+    }
+
+    private static User mapUser(Readable row) {
+        User user = new User();
+        user.setId(row.get("id", Integer.class));
+        user.setEmail(row.get("email", String.class));
+        user.setLogin(row.get("login", String.class));
+        user.setName(row.get("name", String.class));
+        user.setBirthday(row.get("birthday", LocalDate.class));
+        return user;
+    }
+}
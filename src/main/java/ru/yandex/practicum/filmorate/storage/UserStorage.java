@@ -1,26 +1,41 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.User;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 public interface UserStorage {
     List<User> getAll();
 
+    List<User> getPage(int afterId, int limit);
+
     User create(User user);
 
+    List<User> createAll(List<User> users);
+
     User update(User user);
 
     Optional<User> getById(int id);
 
+    List<User> getByIds(List<Integer> ids);
+
+    Map<String, Integer> getIdsByLoginOrEmail(Collection<String> keys);
+
     void delete(int id);
 
     void addFriend(int userId, int friendId);
 
+    int addFriends(int[] userIds, int[] friendIds);
+
     void removeFriend(int userId, int friendId);
 
     List<User> getFriends(int userId);
 
     List<User> getCommonFriends(int userId, int otherId);
 
+    void exportFriends(BiConsumer<Integer, int[]> consumer);
+
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@code Set<Integer>} поверх отсортированного массива int. Массив не копируется и не меняется:
+ * чтение идёт по нему, а первое изменение переносит элементы в собственный {@link HashSet}.
+ */
+final class IntArraySet extends AbstractSet<Integer> {
+
+    private final int[] sorted;
+    private Set<Integer> copy;
+
+    IntArraySet(int[] sorted) {
+        this.sorted = sorted;
+    }
+
+    @Override
+    public int size() {
+        return copy != null ? copy.size() : sorted.length;
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        if (copy != null) {
+            return copy.contains(value);
+        }
+        return value instanceof Integer id && SortedIntArrays.contains(sorted, id);
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        if (copy != null) {
+            return copy.iterator();
+        }
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < sorted.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (next >= sorted.length) {
+                    throw new NoSuchElementException();
+                }
+                return sorted[next++];
+            }
+
+            @Override
+            public void remove() {
+                if (next == 0) {
+                    throw new IllegalStateException();
+                }
+                copy().remove(sorted[next - 1]);
+            }
+        };
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return copy().add(value);
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return copy().remove(value);
+    }
+
+    @Override
+    public void clear() {
+        copy().clear();
+    }
+
+    private Set<Integer> copy() {
+        if (copy == null) {
+            copy = new HashSet<>(sorted.length * 2);
+            for (int value : sorted) {
+                copy.add(value);
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/**
+ * Отображение int → int с открытой адресацией и линейным пробированием, без упаковки в {@link Integer}.
+ * Ключ {@link Integer#MIN_VALUE} зарезервирован под пустую ячейку.
+ */
+public final class IntIntMap {
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public void increment(int key) {
+        add(key, 1);
+    }
+
+    public void add(int key, int delta) {
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            insertAt(slot, key, delta);
+        } else {
+            values[slot] += delta;
+        }
+    }
+
+    /**
+     * Добавляет ключ, если его ещё нет; возвращает {@code true}, если ключ был добавлен.
+     */
+    public boolean putIfAbsent(int key, int value) {
+        int slot = slotOf(key);
+        if (keys[slot] != EMPTY) {
+            return false;
+        }
+        insertAt(slot, key, value);
+        return true;
+    }
+
+    public boolean containsKey(int key) {
+        return keys[slotOf(key)] != EMPTY;
+    }
+
+    public int get(int key, int missing) {
+        int slot = slotOf(key);
+        return keys[slot] != EMPTY ? values[slot] : missing;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public boolean isUsed(int slot) {
+        return keys[slot] != EMPTY;
+    }
+
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public int valueAt(int slot) {
+        return values[slot];
+    }
+
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insertAt(int slot, int key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Операции над отсортированными массивами int без повторов. Исходные массивы не изменяются:
+ * вставка и удаление возвращают новый массив или тот же, если менять нечего. Вставка принимает
+ * {@code null} как пустой массив, чтобы её можно было использовать прямо в {@code Map.compute}.
+ * Тот же формат связей используют хранилища в памяти: 4 байта на id вместо упакованного
+ * {@link Integer} и узла хеш-таблицы.
+ */
+public final class SortedIntArrays {
+
+    public static final int[] EMPTY = new int[0];
+
+    private static final int GALLOP_RATIO = 16;
+
+    private SortedIntArrays() {
+    }
+
+    public static int[] of(int[] values) {
+        return Arrays.stream(values).sorted().distinct().toArray();
+    }
+
+    /**
+     * Изменяемый {@code Set<Integer>} с элементами массива; массив не копируется, пока набор не меняют.
+     */
+    public static Set<Integer> asSet(int[] sorted) {
+        return new IntArraySet(sorted);
+    }
+
+    public static boolean contains(int[] sorted, int value) {
+        return Arrays.binarySearch(sorted, value) >= 0;
+    }
+
+    public static int[] insert(int[] sorted, int value) {
+        if (sorted == null) {
+            return new int[]{value};
+        }
+        int position = Arrays.binarySearch(sorted, value);
+        if (position >= 0) {
+            return sorted;
+        }
+        position = -position - 1;
+        int[] updated = new int[sorted.length + 1];
+        System.arraycopy(sorted, 0, updated, 0, position);
+        updated[position] = value;
+        System.arraycopy(sorted, position, updated, position + 1, sorted.length - position);
+        return updated;
+    }
+
+    public static int[] remove(int[] sorted, int value) {
+        int position = Arrays.binarySearch(sorted, value);
+        if (position < 0) {
+            return sorted;
+        }
+        int[] updated = new int[sorted.length - 1];
+        System.arraycopy(sorted, 0, updated, 0, position);
+        System.arraycopy(sorted, position + 1, updated, position, sorted.length - position - 1);
+        return updated;
+    }
+
+    public static int[] intersect(int[] a, int[] b) {
+        if (a.length > b.length) {
+            return intersect(b, a);
+        }
+        if (a.length == 0) {
+            return EMPTY;
+        }
+        if ((long) a.length * GALLOP_RATIO < b.length) {
+            return gallop(a, b);
+        }
+
+        int[] result = new int[a.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int x = a[i];
+            int y = b[j];
+            if (x == y) {
+                result[size++] = x;
+            }
+            i += x <= y ? 1 : 0;
+            j += y <= x ? 1 : 0;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] gallop(int[] small, int[] large) {
+        int[] result = new int[small.length];
+        int size = 0;
+        int from = 0;
+        for (int x : small) {
+            int position = Arrays.binarySearch(large, from, large.length, x);
+            if (position >= 0) {
+                result[size++] = x;
+                from = position + 1;
+            } else {
+                from = -position - 1;
+            }
+            if (from == large.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Разворачивает связи: для каждого значения из {@code adjacency} передаёт отсортированный массив ключей,
+     * в чьих массивах оно встречается. Рёбра упаковываются в long как (значение, ключ) и сортируются.
+     */
+    public static void transpose(Map<Integer, int[]> adjacency, BiConsumer<Integer, int[]> consumer) {
+        long[] edges = new long[adjacency.values().stream().mapToInt(values -> values.length).sum()];
+        int size = 0;
+        for (Map.Entry<Integer, int[]> entry : adjacency.entrySet()) {
+            for (int value : entry.getValue()) {
+                edges[size++] = ((long) value << 32) | (entry.getKey() & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(edges);
+
+        for (int from = 0; from < edges.length; ) {
+            int value = (int) (edges[from] >> 32);
+            int to = from;
+            while (to < edges.length && (int) (edges[to] >> 32) == value) {
+                to++;
+            }
+            int[] keys = new int[to - from];
+            for (int i = from; i < to; i++) {
+                keys[i - from] = (int) edges[i];
+            }
+            consumer.accept(value, keys);
+            from = to;
+        }
+    }
+}
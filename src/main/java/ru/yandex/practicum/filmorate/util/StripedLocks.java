@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Фиксированный набор блокировок, выбираемых по id. Операция над парой id берёт обе блокировки
+ * в порядке номеров полос, поэтому встречные операции вроде дружбы {@code a → b} и {@code b → a}
+ * не взаимоблокируются; при совпадении полос блокировка берётся один раз.
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedLocks(int minStripes) {
+        int count = Integer.highestOneBit(Math.max(minStripes - 1, 1)) << 1;
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = count - 1;
+    }
+
+    public <T> T withLock(int id, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripe(id)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <T> T withLocks(int firstId, int secondId, Supplier<T> action) {
+        int first = stripe(firstId);
+        int second = stripe(secondId);
+        if (first == second) {
+            return withLock(firstId, action);
+        }
+        ReentrantLock outer = stripes[Math.min(first, second)];
+        ReentrantLock inner = stripes[Math.max(first, second)];
+        outer.lock();
+        try {
+            inner.lock();
+            try {
+                return action.get();
+            } finally {
+                inner.unlock();
+            }
+        } finally {
+            outer.unlock();
+        }
+    }
+
+    private int stripe(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/**
+ * Выбор {@code limit} лучших ключей из {@link IntIntMap} по убыванию значения, при равенстве — по возрастанию ключа.
+ * Работает через минимальную кучу упакованных long фиксированного размера, без упаковки в объекты.
+ * Ключи должны быть неотрицательными, значения — положительными.
+ */
+public final class TopK {
+
+    private TopK() {
+    }
+
+    public static int[] select(IntIntMap scores, int limit) {
+        long[] heap = new long[Math.min(limit, scores.size())];
+        int size = 0;
+        for (int slot = 0; slot < scores.capacity(); slot++) {
+            if (!scores.isUsed(slot)) {
+                continue;
+            }
+            long key = rank(scores.valueAt(slot), scores.keyAt(slot));
+            if (size < heap.length) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (size > 0 && key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+
+        Arrays.sort(heap, 0, size);
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = Integer.MAX_VALUE - (int) heap[size - 1 - i];
+        }
+        return ids;
+    }
+
+    private static long rank(int score, int key) {
+        return ((long) score << 32) | (Integer.MAX_VALUE - key);
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        long key = heap[0];
+        int index = 0;
+        int child;
+        while ((child = 2 * index + 1) < size) {
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+}
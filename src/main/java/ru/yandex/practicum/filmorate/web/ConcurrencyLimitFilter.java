@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ограничивает число одновременно обрабатываемых запросов. На виртуальных потоках пул Tomcat больше
+ * не сдерживает нагрузку, и без лимита тысячи запросов стоят в очереди за соединениями к базе.
+ * Запрос ждёт свободного места не дольше {@code queue-timeout-ms}, затем получает 503.
+ * По умолчанию ({@code max-requests=-1}) лимит включается только в режиме виртуальных потоков
+ * и равен удвоенному размеру пула соединений; 0 отключает лимит. Асинхронный запрос (например, потоковая
+ * выгрузка) держит место до своего завершения, а не до возврата из первой обработки.
+ */
+@Component
+@Profile("!reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final int AUTO = -1;
+    private static final int CONNECTIONS_PER_SLOT = 2;
+
+    private final Semaphore permits;
+    private final int maxRequests;
+    private final long queueTimeoutMs;
+    private final Counter rejected;
+
+    @Autowired
+    public ConcurrencyLimitFilter(MeterRegistry registry,
+                                  @Value("${filmorate.concurrency.max-requests:-1}") int maxRequests,
+                                  @Value("${filmorate.concurrency.queue-timeout-ms:1000}") long queueTimeoutMs,
+                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                  @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        if (maxRequests == AUTO) {
+            maxRequests = virtualThreads ? poolSize * CONNECTIONS_PER_SLOT : 0;
+        }
+        this.maxRequests = maxRequests;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.permits = maxRequests > 0 ? new Semaphore(maxRequests, true) : null;
+        this.rejected = Counter.builder("filmorate.requests.rejected")
+                .description("Запросы, отклонённые из-за превышения лимита одновременных запросов")
+                .register(registry);
+        if (permits != null) {
+            Gauge.builder("filmorate.requests.in-flight", permits, p -> this.maxRequests - p.availablePermits())
+                    .description("Одновременно обрабатываемые запросы")
+                    .register(registry);
+            log.info("Лимит одновременных запросов: {}, ожидание до {} мс", maxRequests, queueTimeoutMs);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return permits == null || request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("{\"error\":\"Сервер перегружен\",\"message\":\"Превышен лимит "
+                    + "одновременных запросов (" + maxRequests + "), повторите позже\"}");
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new PermitRelease());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Возвращает место, когда асинхронная часть запроса закончилась любым образом.
+     */
+    private final class PermitRelease implements AsyncListener {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // повторный startAsync сбрасывает слушателей — остаёмся на новом контексте
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -33,11 +33,14 @@ CREATE TABLE IF NOT EXISTS films (
     release_date DATE NOT NULL,
     duration INTEGER NOT NULL,
     mpa_id INTEGER,
+    like_count INTEGER NOT NULL DEFAULT 0,
     CONSTRAINT chk_duration_positive CHECK (duration > 0),
     CONSTRAINT chk_release_date CHECK (release_date >= '1895-12-28'),
     FOREIGN KEY (mpa_id) REFERENCES mpa_ratings(id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_films_like_count ON films (like_count DESC, id);
+
 CREATE TABLE IF NOT EXISTS film_genres (
     film_id INTEGER NOT NULL,
     genre_id INTEGER NOT NULL,
@@ -51,14 +54,14 @@ CREATE TABLE IF NOT EXISTS friends (
     friend_id INTEGER NOT NULL,
     confirmed BOOLEAN DEFAULT FALSE,
     PRIMARY KEY (user_id, friend_id),
-    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
-    FOREIGN KEY (friend_id) REFERENCES users(id) ON DELETE CASCADE
+    CONSTRAINT fk_friends_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT fk_friends_friend FOREIGN KEY (friend_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
 CREATE TABLE IF NOT EXISTS likes (
     film_id INTEGER NOT NULL,
     user_id INTEGER NOT NULL,
     PRIMARY KEY (film_id, user_id),
-    FOREIGN KEY (film_id) REFERENCES films(id) ON DELETE CASCADE,
-    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+    CONSTRAINT fk_likes_film FOREIGN KEY (film_id) REFERENCES films(id) ON DELETE CASCADE,
+    CONSTRAINT fk_likes_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
\ No newline at end of file
@@ -0,0 +1,191 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementBudget;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.CachedFilmStorage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FilmQueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CachedFilmStorage filmCache;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private SqlStatementBudget statementBudget;
+
+    @Autowired
+    private FilmService filmService;
+
+    @BeforeEach
+    void createFilms() throws Exception {
+        filmCache.invalidateAll();
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/films")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"Фильм " + i + "\",\"description\":\"Описание\"," +
+                                    "\"releaseDate\":\"2000-01-01\",\"duration\":100," +
+                                    "\"mpa\":{\"id\":1},\"genres\":[{\"id\":1},{\"id\":2}]}"))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void getAllFilmsDoesNotQueryGenresPerFilm() throws Exception {
+        double before = statements("GET", "/films");
+        mockMvc.perform(get("/films")).andExpect(status().isOk());
+
+        assertEquals(2, statements("GET", "/films") - before);
+    }
+
+    @Test
+    void getPopularFilmsDoesNotQueryGenresPerFilm() throws Exception {
+        double before = statements("GET", "/films/popular");
+        mockMvc.perform(get("/films/popular").param("count", "5")).andExpect(status().isOk());
+
+        assertEquals(2, statements("GET", "/films/popular") - before);
+    }
+
+    @Test
+    void getPopularFilmsIsServedFromCacheOnceWarm() throws Exception {
+        mockMvc.perform(get("/films/popular").param("count", "5")).andExpect(status().isOk());
+        double hits = cacheHits();
+        double before = statements("GET", "/films/popular");
+        mockMvc.perform(get("/films/popular").param("count", "5")).andExpect(status().isOk());
+
+        assertEquals(0, statements("GET", "/films/popular") - before);
+        assertEquals(hits + 5, cacheHits());
+        assertEquals(filmCache.size(), registry.get("cache.size").tag("cache", "films").gauge().value());
+    }
+
+    @Test
+    void createFilmValidatesGenresAndMpaWithoutQueries() throws Exception {
+        double before = statements("POST", "/films");
+        mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Фильм\",\"releaseDate\":\"2000-01-01\",\"duration\":100," +
+                                "\"mpa\":{\"id\":2},\"genres\":[{\"id\":1},{\"id\":3},{\"id\":6}]}"))
+                .andExpect(status().isOk());
+
+        assertEquals(2, statements("POST", "/films") - before);
+    }
+
+    @Test
+    void addLikeWritesInSingleRoundTrip() throws Exception {
+        String login = "user" + System.nanoTime();
+        String user = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + login + "@mail.ru\",\"login\":\"" + login + "\"," +
+                                "\"birthday\":\"1990-01-01\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int userId = Integer.parseInt(user.replaceAll(".*\"id\":(\\d+).*", "$1"));
+
+        String like = "/films/{id}/like/{userId}";
+        double before = statements("PUT", like);
+        mockMvc.perform(put("/films/1/like/" + userId)).andExpect(status().isOk());
+        assertEquals(2, statements("PUT", like) - before);
+
+        before = statements("PUT", like);
+        mockMvc.perform(put("/films/1/like/" + userId)).andExpect(status().isOk());
+        assertEquals(1, statements("PUT", like) - before);
+
+        mockMvc.perform(put("/films/999999/like/" + userId)).andExpect(status().isNotFound());
+        mockMvc.perform(put("/films/1/like/999999")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void bulkImportBatchesFilmsAndGenres() throws Exception {
+        String valid = "{\"name\":\"Импорт\",\"releaseDate\":\"2001-01-01\",\"duration\":90," +
+                "\"mpa\":{\"id\":3},\"genres\":[{\"id\":2},{\"id\":2},{\"id\":4}]}";
+        String badGenre = "{\"name\":\"Импорт\",\"releaseDate\":\"2001-01-01\",\"duration\":90," +
+                "\"mpa\":{\"id\":3},\"genres\":[{\"id\":99}]}";
+        String body = String.join("\n", valid, "{broken", valid, badGenre, valid);
+
+        double before = statements("POST", "/films/bulk");
+        String response = mockMvc.perform(post("/films/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(2, statements("POST", "/films/bulk") - before);
+        String[] items = response.split("\\},\\{");
+        assertEquals(5, items.length);
+        assertTrue(items[0].contains("\"error\":null"));
+        assertTrue(items[1].contains("Некорректный JSON"));
+        assertTrue(items[3].contains("Жанр с id 99 не найден"));
+        int first = Integer.parseInt(items[0].replaceAll(".*\"id\":(\\d+).*", "$1"));
+        int third = Integer.parseInt(items[2].replaceAll(".*\"id\":(\\d+).*", "$1"));
+        int fifth = Integer.parseInt(items[4].replaceAll(".*\"id\":(\\d+).*", "$1"));
+        assertTrue(first < third && third < fifth);
+    }
+
+    @Test
+    void exportStreamsFilmsWithGenresInSingleQuery() throws Exception {
+        MvcResult result = mockMvc.perform(get("/films/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertTrue(lines.length >= 5);
+        assertTrue(lines[lines.length - 1].contains("\"genres\":[{\"id\":1"));
+
+        // выгрузка пишет тело в асинхронном потоке, который фильтр не видит, поэтому считаем вокруг сервиса
+        statementBudget.begin();
+        filmService.exportAll(film -> { });
+        assertEquals(1, statementBudget.end("GET", "/films/export"));
+    }
+
+    @Test
+    void searchPagesByOffsetHeaderAndListPagesByCursor() throws Exception {
+        mockMvc.perform(get("/films/search").param("q", "Фильм").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Offset", "2"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+        mockMvc.perform(get("/films").param("after", "0").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andExpect(header().doesNotExist("X-Next-Offset"));
+    }
+
+    private double statements(String method, String uri) {
+        DistributionSummary summary = registry.find("filmorate.http.sql.statements")
+                .tags("method", method, "uri", uri)
+                .summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+
+    private double cacheHits() {
+        return registry.get("cache.gets").tags("cache", "films", "result", "hit").functionCounter().count();
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+@SpringBootTest
+class FriendGraphConsistencyTests {
+
+    private static final int USERS = 6;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private FriendGraph friendGraph;
+
+    @Test
+    void graphMatchesStorageAfterConcurrentAddAndRemove() throws Exception {
+        int[] ids = new int[USERS];
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            String login = "graph" + System.nanoTime();
+            user.setLogin(login);
+            user.setEmail(login + "@mail.ru");
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            ids[i] = userService.create(user).getId();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            SplittableRandom random = new SplittableRandom(thread);
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < 300; i++) {
+                    int userId = ids[random.nextInt(USERS)];
+                    int friendId = ids[random.nextInt(USERS)];
+                    if (userId == friendId) {
+                        continue;
+                    }
+                    if (random.nextBoolean()) {
+                        userService.addFriend(userId, friendId);
+                    } else {
+                        userService.removeFriend(userId, friendId);
+                    }
+                }
+            }));
+        }
+        try {
+            for (Future<?> task : tasks) {
+                task.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<Integer, int[]> stored = new HashMap<>();
+        userStorage.exportFriends(stored::put);
+        for (int userId : ids) {
+            assertArrayEquals(stored.getOrDefault(userId, new int[0]), friendGraph.getFriends(userId),
+                    "Друзья пользователя " + userId + " в графе и в базе расходятся");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.service.PopularityIndex;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.likes.write-behind.flush-interval-ms=60000"
+})
+class LikeWriteBufferTests {
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LikeStorage likeStorage;
+
+    @Autowired
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @Autowired
+    private PopularityIndex popularityIndex;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void appliesLikesToIndexesAtOnceAndCoalescesWrites() {
+        Film film = filmService.create(film());
+        User first = userService.create(user("first"));
+        User second = userService.create(user("second"));
+
+        filmService.addLike(film.getId(), first.getId());
+        filmService.addLike(film.getId(), second.getId());
+        filmService.removeLike(film.getId(), second.getId());
+        filmService.addLike(film.getId(), first.getId());
+
+        assertEquals(1, pending());
+        assertEquals(0, likeStorage.getLikesCount(film.getId()));
+
+        Film popular = filmService.getPopular(1, null, null).get(0);
+
+        assertEquals(film.getId(), popular.getId());
+        assertEquals(1, popularityIndex.getLikes(film.getId()));
+        assertEquals(1, pending());
+
+        likeWriteBuffer.flush();
+        assertEquals(1, registry.get("filmorate.likes.write-behind.flush").timer().count());
+
+        assertEquals(0, pending());
+        assertEquals(1, likeStorage.getLikesCount(film.getId()));
+        assertEquals(1, popularityIndex.getLikes(film.getId()));
+    }
+
+    @Test
+    void rejectsLikesOfUnknownUsersAndFilmsBeforeBuffering() {
+        Film film = filmService.create(film());
+        User user = userService.create(user("known"));
+
+        assertThrows(NotFoundException.class, () -> filmService.addLike(film.getId(), Integer.MAX_VALUE));
+        assertThrows(NotFoundException.class, () -> filmService.removeLike(film.getId(), Integer.MAX_VALUE));
+        assertThrows(NotFoundException.class, () -> filmService.removeLike(Integer.MAX_VALUE, user.getId()));
+        assertEquals(0, pending());
+    }
+
+    private double pending() {
+        return registry.get("filmorate.likes.write-behind.pending").gauge().value();
+    }
+
+    private static Film film() {
+        Film film = new Film();
+        Film.Mpa mpa = new Film.Mpa();
+        mpa.setId(1);
+        film.setName("Премьера");
+        film.setReleaseDate(LocalDate.of(2024, 1, 1));
+        film.setDuration(120);
+        film.setMpa(mpa);
+        return film;
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setLogin(login + System.nanoTime());
+        user.setEmail(user.getLogin() + "@mail.ru");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
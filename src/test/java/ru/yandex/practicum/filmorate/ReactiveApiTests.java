@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.service.PopularityIndex;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.web.ConcurrencyLimitFilter;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("reactive")
+class ReactiveApiTests {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void doesNotLoadServletStackBeans() {
+        for (Class<?> type : new Class<?>[]{FilmService.class, UserService.class, LikeWriteBuffer.class,
+                PopularityIndex.class, ConcurrencyLimitFilter.class}) {
+            assertEquals(0, context.getBeanNamesForType(type).length, type.getSimpleName());
+        }
+    }
+
+    @Test
+    void likesAndFriendsGoThroughReactiveStorages() {
+        int first = createUser("first");
+        int second = createUser("second");
+        int common = createUser("common");
+
+        Film film = client.post().uri("/films")
+                .bodyValue(Map.of("name", "Реактивный фильм", "description", "Описание",
+                        "releaseDate", "2001-01-01", "duration", 100,
+                        "mpa", Map.of("id", 2), "genres", new Object[]{Map.of("id", 1), Map.of("id", 2)}))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Film.class).returnResult().getResponseBody();
+        assertEquals(2, film.getGenres().size());
+        assertEquals("Комедия", film.getGenres().get(0).getName());
+
+        client.put().uri("/films/{id}/like/{userId}", film.getId(), first).exchange().expectStatus().isOk();
+        client.put().uri("/films/{id}/like/{userId}", film.getId(), first).exchange().expectStatus().isOk();
+        client.get().uri("/films/popular?count=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].id").isEqualTo(film.getId());
+
+        client.put().uri("/users/{id}/friends/{friendId}", first, common).exchange().expectStatus().isOk();
+        client.put().uri("/users/{id}/friends/{friendId}", second, common).exchange().expectStatus().isOk();
+        client.get().uri("/users/{id}/friends/common/{otherId}", first, second)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(User.class).hasSize(1);
+    }
+
+    @Test
+    void sharesValidationAndErrorFormatWithServletApi() {
+        client.post().uri("/films")
+                .bodyValue(Map.of("name", " ", "releaseDate", "2001-01-01", "duration", 100, "mpa", Map.of("id", 1)))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Название фильма не может быть пустым");
+
+        client.post().uri("/films")
+                .bodyValue(Map.of("name", "Фильм", "releaseDate", "2001-01-01", "duration", 100,
+                        "mpa", Map.of("id", 1), "genres", new Object[]{Map.of("id", 999)}))
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("Жанр с id 999 не найден");
+
+        client.get().uri("/films/{id}", Integer.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        client.post().uri("/films/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"name\":\"Из пакета\",\"releaseDate\":\"2001-01-01\",\"duration\":90,\"mpa\":{\"id\":1}}\n" +
+                        "{\"name\":\"Старый\",\"releaseDate\":\"1800-01-01\",\"duration\":90,\"mpa\":{\"id\":1}}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].id").isNumber()
+                .jsonPath("$[1].error").isEqualTo("Дата релиза — не раньше 28 декабря 1895 года");
+    }
+
+    private int createUser(String name) {
+        String login = name + System.nanoTime();
+        return client.post().uri("/users")
+                .bodyValue(Map.of("email", login + "@mail.ru", "login", login, "birthday", "1990-01-01"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class).returnResult().getResponseBody().getId();
+    }
+}
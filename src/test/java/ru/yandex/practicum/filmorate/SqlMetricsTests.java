@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "filmorate.sql.statement-budget=1",
+        "filmorate.sql.statement-budget-mode=fail"
+})
+@AutoConfigureMockMvc
+class SqlMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Test
+    void recordsStatementsPerRequestAndFailsOverBudget() throws Exception {
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        filmService.create(film);
+
+        mockMvc.perform(get("/mpa")).andExpect(status().isOk());
+
+        String response = mockMvc.perform(get("/films"))
+                .andExpect(status().isInternalServerError())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(response.contains("Превышен бюджет SQL-запросов"));
+
+        assertEquals(2, registry.get("filmorate.http.sql.statements")
+                .tags("method", "GET", "uri", "/films")
+                .summary().max());
+        assertNotNull(registry.get("filmorate.dao")
+                .tags("dao", "FilmDbStorage", "method", "getAll", "outcome", "error")
+                .timer());
+        assertNotNull(registry.get("filmorate.http.sql.statements")
+                .tags("uri", "/mpa")
+                .summary());
+    }
+}
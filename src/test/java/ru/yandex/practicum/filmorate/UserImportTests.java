@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserImportTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void importsUsersAndFriendsByLoginOrEmail() throws Exception {
+        String prefix = "bulk" + System.nanoTime();
+        String users = String.join("\n",
+                user(prefix + "a"),
+                user(prefix + "b"),
+                "{broken",
+                user(prefix + "a"),
+                "{\"email\":\"" + prefix + "c@mail.ru\",\"login\":\"with space\"}",
+                user(prefix + "c"));
+
+        mockMvc.perform(post("/users/bulk").contentType("application/x-ndjson").content(users))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(6))
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.errors[0].index").value(2))
+                .andExpect(jsonPath("$.errors[1].error").value("Логин " + prefix + "a уже занят"))
+                .andExpect(jsonPath("$.errors[2].index").value(4));
+
+        String links = "[" +
+                "{\"user\":\"" + prefix + "a\",\"friend\":\"" + prefix + "b@mail.ru\"}," +
+                "{\"user\":\"" + prefix + "a@mail.ru\",\"friend\":\"" + prefix + "c\"}," +
+                "{\"user\":\"" + prefix + "a\",\"friend\":\"" + prefix + "b\"}," +
+                "{\"user\":\"" + prefix + "a\",\"friend\":\"" + prefix + "missing\"}" +
+                "]";
+
+        String report = mockMvc.perform(post("/users/friends/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(links))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.skipped").value(1))
+                .andExpect(jsonPath("$.errors[0].error").value("Пользователь " + prefix + "missing не найден"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(report.contains("\"rowsPerSecond\""));
+
+        String page = mockMvc.perform(get("/users").param("after", "0").param("limit", "1000"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        int userId = Integer.parseInt(page.replaceAll(".*\"id\":(\\d+),\"email\":\"" + prefix + "a@.*", "$1"));
+
+        mockMvc.perform(get("/users/" + userId + "/friends"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].login").value(prefix + "b"))
+                .andExpect(jsonPath("$[1].login").value(prefix + "c"));
+    }
+
+    @Test
+    void reportsTruncatedJsonArrayInsteadOfFailing() throws Exception {
+        String prefix = "cut" + System.nanoTime();
+        String users = "[" + user(prefix + "a") + "," + user(prefix + "b") + ",{\"login\": }";
+
+        mockMvc.perform(post("/users/bulk").contentType(MediaType.APPLICATION_JSON).content(users))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(3))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(2))
+                .andExpect(jsonPath("$.errors[0].error").value(startsWith("Некорректный JSON")));
+
+        String links = "[{\"user\":\"" + prefix + "a\",\"friend\":\"" + prefix + "b\"},{\"user\":";
+        mockMvc.perform(post("/users/friends/bulk").contentType(MediaType.APPLICATION_JSON).content(links))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(1));
+    }
+
+    private static String user(String login) {
+        return "{\"email\":\"" + login + "@mail.ru\",\"login\":\"" + login + "\",\"birthday\":\"1990-01-01\"}";
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class FilmSearchIndexTest {
+
+    private final FilmSearchIndex index = new FilmSearchIndex();
+
+    @Test
+    void findsWholeAndPartialWordsRankingNameAboveDescription() {
+        index.addFilm(film(1, "Ёлки", "Новогодняя комедия", 1, 2));
+        index.addFilm(film(2, "Ирония судьбы", "Комедия про ёлки и баню", 1, 2));
+        index.addFilm(film(3, "Матрица", "Фантастика", 3, 4));
+
+        assertArrayEquals(new int[]{1, 2}, index.search("ЕЛКИ", null, null, 10));
+        assertArrayEquals(new int[]{3}, index.search("матр", null, null, 10));
+        assertArrayEquals(new int[]{2}, index.search("ком баню", null, null, 10));
+        assertArrayEquals(new int[]{1}, index.search("елки", null, null, 1));
+        assertArrayEquals(new int[0], index.search("ма", null, null, 10));
+    }
+
+    @Test
+    void filtersByGenreAndMpaAndFollowsUpdates() {
+        index.addFilm(film(1, "Комедия один", "", 1, 2));
+        index.addFilm(film(2, "Комедия два", "", 2, 2));
+        index.addFilm(film(3, "Комедия три", "", 1, 6));
+
+        assertArrayEquals(new int[]{1, 2}, index.search("комедия", 2, null, 10));
+        assertArrayEquals(new int[]{1}, index.search("комедия", 2, 1, 10));
+
+        index.updateFilm(film(1, "Драма", "", 2, 6));
+        assertArrayEquals(new int[]{2, 3}, index.search("комедия", null, null, 10));
+        assertArrayEquals(new int[]{1}, index.search("драм", 6, 2, 10));
+
+        index.removeFilm(2);
+        assertArrayEquals(new int[]{3}, index.search("комедия", null, null, 10));
+        assertArrayEquals(new int[0], index.search("два", null, null, 10));
+    }
+
+    private static Film film(int id, String name, String description, int mpaId, int genreId) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        Film.Mpa mpa = new Film.Mpa();
+        mpa.setId(mpaId);
+        film.setMpa(mpa);
+        Film.Genre genre = new Film.Genre();
+        genre.setId(genreId);
+        film.getGenres().add(genre);
+        return film;
+    }
+}
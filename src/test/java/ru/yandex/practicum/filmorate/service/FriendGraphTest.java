@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.util.SortedIntArrays;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FriendGraphTest {
+
+    @Test
+    void keepsFriendsSortedAndDirected() {
+        FriendGraph graph = new FriendGraph();
+        graph.addFriend(1, 5);
+        graph.addFriend(1, 3);
+        graph.addFriend(1, 5);
+        graph.addFriend(1, 4);
+        graph.removeFriend(1, 4);
+        graph.removeFriend(1, 9);
+
+        assertArrayEquals(new int[]{3, 5}, graph.getFriends(1));
+        assertArrayEquals(new int[0], graph.getFriends(5));
+
+        graph.removeFriend(1, 3);
+        graph.removeFriend(1, 5);
+        assertArrayEquals(new int[0], graph.getFriends(1));
+    }
+
+    @Test
+    void intersectsFriendLists() {
+        FriendGraph graph = new FriendGraph();
+        graph.rebuild(source -> {
+            source.accept(1, new int[]{7, 2, 4, 2, 9});
+            source.accept(2, new int[]{4, 9, 10});
+        });
+
+        assertArrayEquals(new int[]{4, 9}, graph.getCommonFriends(1, 2));
+        assertArrayEquals(new int[]{4, 9}, graph.getCommonFriends(2, 1));
+        assertArrayEquals(new int[0], graph.getCommonFriends(1, 3));
+        assertArrayEquals(new int[]{1, 2}, graph.getFollowers(4));
+        assertArrayEquals(new int[]{1}, graph.getFollowers(2));
+    }
+
+    @Test
+    void suggestsFriendsOfFriendsByMutualCount() {
+        FriendGraph graph = new FriendGraph();
+        graph.addFriend(1, 2);
+        graph.addFriend(1, 3);
+        graph.addFriend(1, 4);
+        graph.addFriend(2, 1);
+        graph.addFriend(2, 5);
+        graph.addFriend(2, 6);
+        graph.addFriend(3, 6);
+        graph.addFriend(3, 7);
+        graph.addFriend(4, 6);
+        graph.addFriend(4, 5);
+        graph.addFriend(4, 3);
+
+        assertArrayEquals(new int[]{6, 5, 7}, graph.getSuggestions(1, 10));
+        assertArrayEquals(new int[]{6, 5}, graph.getSuggestions(1, 2));
+
+        graph.addFriend(3, 7);
+        graph.addFriend(2, 7);
+        graph.addFriend(4, 7);
+        assertArrayEquals(new int[]{6, 7}, graph.getSuggestions(1, 2));
+
+        graph.addFriend(1, 6);
+        assertArrayEquals(new int[]{7, 5}, graph.getSuggestions(1, 10));
+    }
+
+    @Test
+    void gallopsWhenListsDifferInSize() {
+        int[] large = IntStream.range(0, 10_000).map(i -> i * 3).toArray();
+        int[] small = {0, 4, 9, 300, 301, 29_997, 30_000};
+
+        assertArrayEquals(new int[]{0, 9, 300, 29_997}, SortedIntArrays.intersect(small, large));
+        assertArrayEquals(new int[]{0, 9, 300, 29_997}, SortedIntArrays.intersect(large, small));
+    }
+
+    @Test
+    void findsShortestDirectedPath() {
+        FriendGraph graph = new FriendGraph();
+        graph.addFriend(1, 2);
+        graph.addFriend(2, 3);
+        graph.addFriend(3, 4);
+        graph.addFriend(4, 5);
+        graph.addFriend(1, 6);
+        graph.addFriend(6, 4);
+        graph.addFriend(7, 1);
+
+        assertArrayEquals(new int[]{1, 6, 4, 5}, graph.findPath(1, 5, 6));
+        assertArrayEquals(new int[]{2, 3}, graph.findPath(2, 3, 6));
+        assertArrayEquals(new int[]{7, 1, 6, 4}, graph.findPath(7, 4, 6));
+        assertArrayEquals(new int[]{3}, graph.findPath(3, 3, 6));
+        assertNull(graph.findPath(5, 1, 6));
+        assertNull(graph.findPath(1, 5, 2));
+    }
+
+    @Test
+    void findsPathAcrossLongChain() {
+        FriendGraph graph = new FriendGraph();
+        for (int id = 1; id < 1_000; id++) {
+            graph.addFriend(id, id + 1);
+            graph.addFriend(id, id + 10_000);
+            graph.addFriend(id + 20_000, id);
+        }
+
+        assertArrayEquals(IntStream.rangeClosed(100, 106).toArray(), graph.findPath(100, 106, 6));
+        assertNull(graph.findPath(100, 107, 6));
+    }
+}
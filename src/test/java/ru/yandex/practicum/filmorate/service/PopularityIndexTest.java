@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PopularityIndexTest {
+
+    @Test
+    void ordersByLikesThenById() {
+        PopularityIndex index = new PopularityIndex();
+        index.addFilm(film(1, 2000), 0);
+        index.addFilm(film(2, 2000), 5);
+        index.addFilm(film(3, 2000), 5);
+        index.addFilm(film(4, 2000), 1);
+
+        assertEquals(List.of(2, 3, 4, 1), index.getTop(10));
+        assertEquals(List.of(2, 3), index.getTop(2));
+
+        index.addLike(1);
+        index.addLike(1);
+        index.removeLike(2);
+
+        assertEquals(List.of(3, 2, 1, 4), index.getTop(4));
+    }
+
+    @Test
+    void keepsExactCountsUnderConcurrentLikes() throws Exception {
+        PopularityIndex index = new PopularityIndex();
+        for (int filmId = 1; filmId <= 10; filmId++) {
+            index.addFilm(film(filmId, 2000));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    int filmId = i % 10 + 1;
+                    index.addLike(filmId);
+                    if (filmId % 2 == 0) {
+                        index.removeLike(filmId);
+                    }
+                    List<Integer> top = index.getTop(10);
+                    assertEquals(top.size(), top.stream().distinct().count());
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        for (int filmId = 1; filmId <= 10; filmId++) {
+            assertEquals(filmId % 2 == 0 ? 0 : 8_000, index.getLikes(filmId));
+        }
+        assertEquals(List.of(1, 3, 5, 7, 9, 2, 4, 6, 8, 10), index.getTop(10));
+    }
+
+    @Test
+    void filtersByGenreAndYear() {
+        PopularityIndex index = new PopularityIndex();
+        index.addFilm(film(1, 2023, 1), 3);
+        index.addFilm(film(2, 2023, 2), 7);
+        index.addFilm(film(3, 2022, 1, 2), 5);
+        index.addFilm(film(4, 2023, 1, 2), 1);
+
+        assertEquals(List.of(3, 1, 4), index.getTop(10, 1, null));
+        assertEquals(List.of(2, 1, 4), index.getTop(10, null, 2023));
+        assertEquals(List.of(1, 4), index.getTop(10, 1, 2023));
+        assertEquals(List.of(), index.getTop(10, 6, null));
+
+        index.updateFilm(film(2, 2023, 1));
+        index.addLike(4);
+        index.addLike(4);
+        index.addLike(4);
+
+        assertEquals(List.of(2, 3, 4, 1), index.getTop(10, 1, null));
+        assertEquals(List.of(3, 4), index.getTop(10, 2, null));
+    }
+
+    private static Film film(int id, int year, int... genreIds) {
+        Film film = new Film();
+        film.setId(id);
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        for (int genreId : genreIds) {
+            Film.Genre genre = new Film.Genre();
+            genre.setId(genreId);
+            film.getGenres().add(genre);
+        }
+        return film;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecommendationModelTest {
+
+    @Test
+    void recommendsFilmsCoLikedWithUsersLikes() {
+        RecommendationModel model = new RecommendationModel();
+        model.rebuild(source -> {
+            source.accept(1, new int[]{10, 11, 12});
+            source.accept(2, new int[]{10, 11, 13});
+            source.accept(3, new int[]{10, 14});
+            source.accept(4, new int[]{10});
+        });
+
+        assertArrayEquals(new int[]{11, 12, 13, 14}, model.recommend(4, 10));
+        assertArrayEquals(new int[]{11}, model.recommend(4, 1));
+        assertArrayEquals(new int[]{13, 14}, model.recommend(1, 10));
+        assertArrayEquals(new int[0], model.recommend(99, 10));
+        assertArrayEquals(new int[]{11, 12, 13, 14}, model.getSimilar(10));
+    }
+
+    @Test
+    void updatesNeighboursIncrementally() {
+        RecommendationModel model = new RecommendationModel();
+        model.rebuild(source -> {
+            source.accept(1, new int[]{10, 11});
+            source.accept(2, new int[]{12});
+        });
+        assertArrayEquals(new int[0], model.recommend(2, 10));
+
+        model.addLike(10, 2);
+        assertArrayEquals(new int[0], model.recommend(1, 10));
+        model.refreshStale();
+        assertArrayEquals(new int[]{11}, model.recommend(2, 10));
+        assertArrayEquals(new int[]{12}, model.recommend(1, 10));
+
+        model.addLike(12, 3);
+        model.addLike(13, 3);
+        model.addLike(12, 4);
+        model.addLike(13, 4);
+        model.refreshStale();
+        assertArrayEquals(new int[]{13, 11}, model.recommend(2, 10));
+
+        model.removeLike(10, 2);
+        model.refreshStale();
+        assertArrayEquals(new int[]{13}, model.recommend(2, 10));
+    }
+
+    @Test
+    void keepsUserAndFilmMatricesInAgreementUnderConcurrentLikes() throws Exception {
+        RecommendationModel model = new RecommendationModel();
+        int rounds = 100_000;
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> adds = executor.submit(() -> race(barrier, rounds, id -> model.addLike(id, id)));
+            Future<?> removes = executor.submit(() -> race(barrier, rounds, id -> model.removeLike(id, id)));
+            adds.get(1, TimeUnit.MINUTES);
+            removes.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int id = 0; id < rounds; id++) {
+            assertEquals(model.likesOf(id).length, model.likersOf(id).length, "Лайк фильма " + id);
+        }
+    }
+
+    /**
+     * В каждом раунде оба потока одновременно меняют один и тот же лайк: фильм и пользователь с id раунда.
+     */
+    private static Void race(CyclicBarrier barrier, int rounds, IntConsumer action) throws Exception {
+        for (int id = 0; id < rounds; id++) {
+            barrier.await(1, TimeUnit.MINUTES);
+            action.accept(id);
+        }
+        return null;
+    }
+}
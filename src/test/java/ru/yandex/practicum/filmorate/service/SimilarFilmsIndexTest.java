@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class SimilarFilmsIndexTest {
+
+    private final PopularityIndex popularityIndex = new PopularityIndex();
+    private final RecommendationModel recommendationModel = new RecommendationModel();
+    private final SimilarFilmsIndex index = new SimilarFilmsIndex(popularityIndex, recommendationModel, 0);
+
+    @Test
+    void ranksBySharedGenresAndMpa() {
+        add(film(1, 1, 1, 2));
+        add(film(2, 1, 1, 2));
+        add(film(3, 2, 1, 2));
+        add(film(4, 1, 1));
+        add(film(5, 1, 3));
+        index.rebuild();
+
+        assertArrayEquals(new int[]{2, 3, 4}, index.getSimilar(1, 10));
+        assertArrayEquals(new int[]{2, 3}, index.getSimilar(1, 2));
+        assertArrayEquals(new int[0], index.getSimilar(5, 10));
+    }
+
+    @Test
+    void refreshesWhenGenresOrLikesChange() {
+        add(film(1, 1, 1));
+        add(film(2, 1, 1));
+        add(film(3, 2, 2));
+        index.rebuild();
+        assertArrayEquals(new int[]{2}, index.getSimilar(1, 10));
+
+        Film updated = film(3, 1, 1);
+        popularityIndex.updateFilm(updated);
+        index.updateFilm(updated);
+        assertArrayEquals(new int[]{2, 3}, index.getSimilar(1, 10));
+
+        recommendationModel.addLike(1, 100);
+        recommendationModel.addLike(3, 100);
+        recommendationModel.refreshStale();
+        assertArrayEquals(new int[]{3, 2}, index.getSimilar(1, 10));
+    }
+
+    private void add(Film film) {
+        popularityIndex.addFilm(film);
+        index.addFilm(film);
+    }
+
+    private static Film film(int id, int mpaId, int... genreIds) {
+        Film film = new Film();
+        film.setId(id);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        Film.Mpa mpa = new Film.Mpa();
+        mpa.setId(mpaId);
+        film.setMpa(mpa);
+        for (int genreId : genreIds) {
+            Film.Genre genre = new Film.Genre();
+            genre.setId(genreId);
+            film.getGenres().add(genre);
+        }
+        return film;
+    }
+}
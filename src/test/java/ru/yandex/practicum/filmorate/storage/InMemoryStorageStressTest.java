@@ -0,0 +1,270 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import ru.yandex.practicum.filmorate.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryStorageStressTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void assignsUniqueIdsUnderConcurrentCreates() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < 2_000; i++) {
+                storage.create(film("Фильм " + thread + "-" + i));
+            }
+        });
+
+        int[] ids = storage.getAll().stream().mapToInt(Film::getId).toArray();
+        assertArrayEquals(IntStream.rangeClosed(1, THREADS * 2_000).toArray(), ids);
+    }
+
+    @Test
+    void keepsLikesAndRanksPopularByTheirCount() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        Film few = film("Мало лайков");
+        few.setLikes(Set.of(7));
+        Film many = film("Много лайков");
+        many.setLikes(Set.of(3, 1, 2));
+        storage.create(few);
+        storage.create(many);
+
+        Film stored = storage.getById(many.getId()).orElseThrow();
+        assertEquals(Set.of(1, 2, 3), stored.getLikes());
+        stored.getLikes().add(100);
+        assertEquals(3, storage.getById(many.getId()).orElseThrow().getLikes().size());
+
+        List<Film> popular = storage.getPopular(2);
+        assertEquals(List.of(many.getId(), few.getId()), popular.stream().map(Film::getId).toList());
+        assertEquals(Set.of(7), popular.get(1).getLikes());
+
+        Film renamed = film("Переименован");
+        renamed.setId(many.getId());
+        storage.update(renamed);
+        assertEquals("Переименован", storage.getById(many.getId()).orElseThrow().getName());
+        assertEquals(Set.of(1, 2, 3), storage.getById(many.getId()).orElseThrow().getLikes());
+    }
+
+    @Test
+    void getAllReturnsSortedGrowingSnapshotsWhileUsersAreCreated() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        AtomicInteger writers = new AtomicInteger(THREADS - 1);
+
+        runConcurrently(THREADS, thread -> {
+            if (thread == 0) {
+                int previousSize = 0;
+                while (writers.get() > 0) {
+                    List<User> snapshot = storage.getAll();
+                    for (int i = 1; i < snapshot.size(); i++) {
+                        assertTrue(snapshot.get(i - 1).getId() < snapshot.get(i).getId());
+                    }
+                    assertTrue(snapshot.size() >= previousSize);
+                    previousSize = snapshot.size();
+                }
+                return;
+            }
+            try {
+                for (int i = 0; i < 2_000; i++) {
+                    storage.create(user(thread + "_" + i));
+                }
+            } finally {
+                writers.decrementAndGet();
+            }
+        });
+
+        assertEquals((THREADS - 1) * 2_000, storage.getAll().size());
+        Map<String, Integer> ids = storage.getIdsByLoginOrEmail(List.of("3_1999", "5_0@mail.ru", "missing"));
+        assertEquals(2, ids.size());
+        assertEquals("3_1999", storage.getById(ids.get("3_1999")).orElseThrow().getLogin());
+    }
+
+    @Test
+    void letsOnlyOneUserClaimALoginOrEmail() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        AtomicInteger created = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < 500; i++) {
+                User sameLogin = user("login" + i);
+                sameLogin.setEmail(thread + "_" + i + "@mail.ru");
+                User sameEmail = user(thread + "_" + i);
+                sameEmail.setEmail("email" + i + "@mail.ru");
+                for (User user : List.of(sameLogin, sameEmail)) {
+                    try {
+                        storage.create(user);
+                        created.incrementAndGet();
+                    } catch (DuplicateKeyException e) {
+                        // занято другим потоком — ожидаемо
+                    }
+                }
+            }
+        });
+
+        assertEquals(1_000, created.get());
+        List<User> users = storage.getAll();
+        assertEquals(1_000, users.size());
+        for (User user : users) {
+            Map<String, Integer> ids = storage.getIdsByLoginOrEmail(List.of(user.getLogin(), user.getEmail()));
+            assertEquals(Map.of(user.getLogin(), user.getId(), user.getEmail(), user.getId()), ids);
+        }
+
+        User taken = copy(users.get(0));
+        User other = copy(users.get(1));
+        other.setEmail(taken.getEmail());
+        other.setLogin("renamed");
+        assertThrows(DuplicateKeyException.class, () -> storage.update(other));
+        assertEquals(users.get(1).getLogin(), storage.getById(other.getId()).orElseThrow().getLogin());
+        assertTrue(storage.getIdsByLoginOrEmail(List.of("renamed")).isEmpty());
+    }
+
+    @Test
+    void keepsFriendshipSymmetricInEverySnapshot() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        for (int i = 0; i < 50; i++) {
+            storage.create(user("u" + i));
+        }
+        AtomicInteger writers = new AtomicInteger(THREADS - 1);
+
+        runConcurrently(THREADS, thread -> {
+            if (thread == 0) {
+                while (writers.get() > 0) {
+                    assertSymmetric(storage);
+                }
+                return;
+            }
+            SplittableRandom random = new SplittableRandom(thread);
+            try {
+                for (int i = 0; i < 20_000; i++) {
+                    int userId = random.nextInt(1, 51);
+                    int friendId = random.nextInt(1, 51);
+                    if (random.nextBoolean()) {
+                        storage.addFriend(userId, friendId);
+                    } else {
+                        storage.removeFriend(userId, friendId);
+                    }
+                }
+            } finally {
+                writers.decrementAndGet();
+            }
+        });
+
+        assertSymmetric(storage);
+        for (int userId = 1; userId <= 50; userId++) {
+            int id = userId;
+            for (User friend : storage.getFriends(userId)) {
+                assertTrue(storage.getFriends(friend.getId()).stream().anyMatch(u -> u.getId() == id));
+            }
+        }
+    }
+
+    @Test
+    void leavesNoFriendLinksToDeletedUsers() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        for (int i = 0; i < 200; i++) {
+            storage.create(user("u" + i));
+        }
+
+        runConcurrently(THREADS, thread -> {
+            if (thread == 0) {
+                for (int userId = 101; userId <= 200; userId++) {
+                    storage.delete(userId);
+                }
+                return;
+            }
+            SplittableRandom random = new SplittableRandom(thread);
+            for (int i = 0; i < 20_000; i++) {
+                try {
+                    storage.addFriend(random.nextInt(1, 201), random.nextInt(1, 201));
+                } catch (NotFoundException e) {
+                    // пользователь уже удалён — ожидаемо
+                }
+            }
+        });
+
+        assertEquals(100, storage.getAll().size());
+        storage.exportFriends((userId, friendIds) -> {
+            assertTrue(userId <= 100, "Осталась дружба удалённого пользователя " + userId);
+            for (int friendId : friendIds) {
+                assertTrue(friendId <= 100, "Пользователь " + userId + " дружит с удалённым " + friendId);
+            }
+        });
+        assertSymmetric(storage);
+    }
+
+    private static void assertSymmetric(InMemoryUserStorage storage) {
+        Map<Integer, int[]> friends = new HashMap<>();
+        storage.exportFriends(friends::put);
+        friends.forEach((userId, friendIds) -> {
+            for (int friendId : friendIds) {
+                int[] back = friends.getOrDefault(friendId, new int[0]);
+                assertTrue(IntStream.of(back).anyMatch(id -> id == userId),
+                        "Дружба " + userId + " → " + friendId + " без обратной связи");
+            }
+        });
+    }
+
+    private static void runConcurrently(int threads, IntConsumer body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int number = thread;
+            tasks.add(executor.submit(() -> body.accept(number)));
+        }
+        try {
+            for (Future<?> task : tasks) {
+                task.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User copy(User user) {
+        User copy = user(user.getLogin());
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setName(user.getName());
+        return copy;
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@mail.ru");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    void rejectsRequestsOverLimitAfterQueueTimeout() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(registry, 1, 50, false, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<MockHttpServletResponse> first = CompletableFuture.supplyAsync(() -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/films"), response, (req, res) -> {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return response;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/films"), rejected, (req, res) -> {
+        });
+        assertEquals(503, rejected.getStatus());
+        assertEquals(1.0, registry.get("filmorate.requests.rejected").counter().count());
+
+        release.countDown();
+        assertEquals(200, first.get(5, TimeUnit.SECONDS).getStatus());
+
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/films"), accepted, (req, res) -> {
+        });
+        assertEquals(200, accepted.getStatus());
+    }
+
+    @Test
+    void holdsPermitUntilAsyncRequestCompletes() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(registry, 1, 50, false, 10);
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/films/export");
+        export.setAsyncSupported(true);
+
+        filter.doFilter(export, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        assertEquals(1.0, registry.get("filmorate.requests.in-flight").gauge().value());
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/films"), rejected, (req, res) -> {
+        });
+        assertEquals(503, rejected.getStatus());
+
+        export.getAsyncContext().complete();
+        assertEquals(0.0, registry.get("filmorate.requests.in-flight").gauge().value());
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/films"), accepted, (req, res) -> {
+        });
+        assertEquals(200, accepted.getStatus());
+    }
+
+    @Test
+    void sizesLimitFromPoolOnlyForVirtualThreads() throws Exception {
+        ConcurrencyLimitFilter platform = new ConcurrencyLimitFilter(new SimpleMeterRegistry(), -1, 50, false, 10);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new ConcurrencyLimitFilter(registry, -1, 50, true, 10);
+
+        assertTrue(registry.find("filmorate.requests.in-flight").gauge() != null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        platform.doFilter(new MockHttpServletRequest("GET", "/films"), response, (req, res) -> {
+        });
+        assertEquals(200, response.getStatus());
+    }
+}